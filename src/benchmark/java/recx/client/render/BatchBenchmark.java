@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import org.openjdk.jmh.annotations.*;
+import recx.client.gl.GLDrawMode;
+import recx.client.gl.VertexFormat;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of writing quads to a {@link Batch} in vertices per second: one vertex at a time
+ * with {@link Batch#emit()}, and four at a time with {@link Batch#quad(float, float, float, float, float, float, float, float, float, int)}.
+ * <p>
+ * The {@link MeshBuilder} is measured, since it shares the vertex layout with the {@link Tessellator} but needs no GL context.
+ * Run with {@code gradlew jmh}.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+    private static final int QUADS = 16384;
+    private MeshBuilder builder;
+
+    private static void perVertex(Batch batch, float x, float y, int color) {
+        batch.indices(0, 1, 2, 2, 3, 0).color(color);
+        batch.texCoords(0.25f, 0.5f).vertex(x, y + 1, 1f).emit();
+        batch.texCoords(0.25f, 0.75f).vertex(x, y, 1f).emit();
+        batch.texCoords(0.5f, 0.75f).vertex(x + 1, y, 1f).emit();
+        batch.texCoords(0.5f, 0.5f).vertex(x + 1, y + 1, 1f).emit();
+    }
+
+    private static void bulk(Batch batch, float x, float y, int color) {
+        batch.quad(x, y, x + 1, y + 1, 1f, 0.25f, 0.5f, 0.5f, 0.75f, color);
+    }
+
+    @Setup
+    public void setup() {
+        builder = new MeshBuilder(VertexFormat.POSITION_COLOR_TEX, GLDrawMode.QUADS, QUADS * 4);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUADS * 4)
+    public int perVertex() {
+        builder.begin();
+        for (int i = 0; i < QUADS; i++) {
+            perVertex(builder, i & 255, i >> 8, (i & 1) == 0 ? 0xffffffff : 0x808080ff);
+        }
+        builder.end();
+        return builder.vertexCount();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUADS * 4)
+    public int bulk() {
+        builder.begin();
+        for (int i = 0; i < QUADS; i++) {
+            bulk(builder, i & 255, i >> 8, (i & 1) == 0 ? 0xffffffff : 0x808080ff);
+        }
+        builder.end();
+        return builder.vertexCount();
+    }
+}
@@ -31,18 +31,27 @@ import recx.client.gl.GLStateManager;
 import recx.client.render.*;
 import recx.client.texture.NativeImage;
 import recx.client.texture.TextureAtlas;
+import recx.registry.BuiltinRegistries;
 import recx.util.Identifier;
+import recx.world.ChangeJournal;
 import recx.world.HitResult;
 import recx.world.World;
 import recx.world.block.Block;
 import recx.world.block.Blocks;
+import recx.world.chunk.Chunk;
 import recx.world.entity.PlayerEntity;
+import recx.world.gen.WorldGenerator;
+import recx.world.storage.AutoSaver;
+import recx.world.storage.WorldStorage;
 
+import java.io.IOException;
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
+import java.nio.file.Path;
 import java.text.NumberFormat;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author squid233
@@ -50,6 +59,12 @@ import java.util.Map;
  */
 public final class RecxClient implements Runnable, AutoCloseable {
     private static final RecxClient INSTANCE = new RecxClient();
+    private static final int CHUNK_LOAD_RADIUS = 4;
+    private static final int AUTOSAVE_INTERVAL = 20 * 30;
+    /**
+     * The block changes kept for the consumers of the world between two frames.
+     */
+    private static final int JOURNAL_CAPACITY = 4096;
     private GameVersion version;
     private MemorySegment window;
     private Keyboard keyboard;
@@ -60,19 +75,25 @@ public final class RecxClient implements Runnable, AutoCloseable {
     private int elapsedTicks;
     private GameRenderer gameRenderer;
     private Font font;
+    private WorldStorage worldStorage;
+    private AutoSaver autoSaver;
     private World world;
     private WorldRenderer worldRenderer;
     private PlayerEntity player;
+    private boolean levelLoaded;
     private final Block[] hotBar = {Blocks.STONE, Blocks.GRASS_BLOCK, Blocks.DIRT, Blocks.COBBLESTONE, Blocks.BEDROCK};
     private int selected = 0;
 
     private void init() {
+        // generate the spawn area in the background while initializing GL
+        initWorld();
+
         if (!GLFW.init()) {
             throw new IllegalStateException("Failed to initialize GLFW");
         }
         GLFW.windowHint(GLFW.VISIBLE, false);
         GLFW.windowHint(GLFW.CONTEXT_VERSION_MAJOR, 3);
-        GLFW.windowHint(GLFW.CONTEXT_VERSION_MINOR, 2);
+        GLFW.windowHint(GLFW.CONTEXT_VERSION_MINOR, 3);
         GLFW.windowHint(GLFW.OPENGL_PROFILE, GLFW.OPENGL_CORE_PROFILE);
         GLFW.windowHint(GLFW.OPENGL_FORWARD_COMPAT, true);
         version = GameVersion.getInstance();
@@ -126,9 +147,7 @@ public final class RecxClient implements Runnable, AutoCloseable {
         gameRenderer = new GameRenderer();
         gameRenderer.init();
         font = Font.unifont();
-        world = new World(256, 256, 2);
         worldRenderer = new WorldRenderer(this, world);
-        player = new PlayerEntity(world);
         player.keyboard = keyboard;
 
         // block atlas
@@ -141,6 +160,39 @@ public final class RecxClient implements Runnable, AutoCloseable {
             Identifier.recx("block/stone")
         ));
         RenderSystem.putTexture2D(TextureAtlas.BLOCK, atlas);
+        BlockRenderer.bakeModels(atlas);
+        gameRenderer.spriteBatch().setSprites(BlockRenderer.models().regions());
+
+        // wait for the spawn area
+        final int spawnChunkX = Chunk.toChunkCoord((int) Math.floor(player.position.x()));
+        world.loadChunks(spawnChunkX - CHUNK_LOAD_RADIUS, spawnChunkX + CHUNK_LOAD_RADIUS);
+        if (!levelLoaded) {
+            player.teleport(player.position.x(), world.getTopY((int) Math.floor(player.position.x()), 1), player.position.z());
+            player.prevPosition.set(player.position);
+        }
+    }
+
+    private void initWorld() {
+        worldStorage = new WorldStorage(Path.of("saves", "world"));
+        long seed = ThreadLocalRandom.current().nextLong();
+        try {
+            seed = worldStorage.readSeed(seed);
+        } catch (IOException | RuntimeException e) {
+            // todo: log
+            e.printStackTrace();
+        }
+        world = new World(256, 2, worldStorage.regions(), WorldGenerator.createDefault(seed));
+        world.setJournal(new ChangeJournal(JOURNAL_CAPACITY));
+        player = new PlayerEntity(world);
+        try {
+            levelLoaded = worldStorage.readLevel(world, player);
+        } catch (IOException | RuntimeException e) {
+            // todo: log
+            e.printStackTrace();
+        }
+        final int spawnChunkX = Chunk.toChunkCoord((int) Math.floor(player.position.x()));
+        world.requestChunks(spawnChunkX - CHUNK_LOAD_RADIUS, spawnChunkX + CHUNK_LOAD_RADIUS);
+        autoSaver = new AutoSaver(worldStorage, AUTOSAVE_INTERVAL);
     }
 
     private static Map<Identifier, NativeImage> images(Identifier... ids) {
@@ -152,7 +204,13 @@ public final class RecxClient implements Runnable, AutoCloseable {
     }
 
     private void tick() {
+        final int playerChunkX = Chunk.toChunkCoord((int) Math.floor(player.position.x()));
+        world.requestChunks(playerChunkX - CHUNK_LOAD_RADIUS, playerChunkX + CHUNK_LOAD_RADIUS);
+        world.acceptChunks();
+        // the player must not fall through missing chunks
+        world.loadChunks(playerChunkX - 1, playerChunkX + 1);
         player.tick();
+        autoSaver.tick(world, player);
 
         elapsedTicks++;
     }
@@ -212,6 +270,7 @@ public final class RecxClient implements Runnable, AutoCloseable {
 
         GL.clear(GL.COLOR_BUFFER_BIT | GL.DEPTH_BUFFER_BIT);
         worldRenderer.render(partialTick);
+        gameRenderer.renderQueue().flush();
     }
 
     private void renderGui(double partialTick) {
@@ -220,38 +279,43 @@ public final class RecxClient implements Runnable, AutoCloseable {
         );
         final Matrix4fStack view = RenderSystem.viewMatrix();
         view.identity();
+        RenderSystem.setViewMatrix(view);
 
+        final RenderQueue queue = gameRenderer.renderQueue();
         // render selected block
-        view.pushMatrix();
-        RenderSystem.setViewMatrix(view
-            .scaling(16f * 2f)
-            .translate(-1f, -1f, 0f)
-            .scale(1f / (16f * 2f))
-            .translate(width, height, 0f)
-            .scale(16f * 2f));
-        RenderSystem.setProgram(gameRenderer.positionColorTex());
-        view.popMatrix();
-
-        RenderSystem.bindTexture2D(TextureAtlas.BLOCK);
-        final Tessellator t = Tessellator.getInstance();
-        t.begin();
-        BlockRenderer.render(hotBar[selected], t, partialTick, 0, 0, 1);
-        t.end();
-        RenderSystem.bindTexture2D(0);
-
-        RenderSystem.setProgram(null);
-
-        renderDebugHud(partialTick);
+        final int rawId = BuiltinRegistries.BLOCK.getRawId(hotBar[selected]);
+        queue.submit(RenderLayer.GUI,
+            gameRenderer.renderTypeSprite(),
+            RenderSystem.texture2D(TextureAtlas.BLOCK).id(),
+            0,
+            () -> {
+                view.pushMatrix();
+                RenderSystem.setViewMatrix(view
+                    .scaling(16f * 2f)
+                    .translate(-1f, -1f, 0f)
+                    .scale(1f / (16f * 2f))
+                    .translate(width, height, 0f)
+                    .scale(16f * 2f));
+                RenderSystem.uploadUniforms();
+                final SpriteBatch sprites = gameRenderer.spriteBatch();
+                sprites.begin();
+                BlockRenderer.render(rawId, sprites, 0, 0, 1);
+                sprites.end();
+                view.popMatrix();
+                RenderSystem.setViewMatrix(view);
+            });
+
+        queue.submit(RenderLayer.GUI,
+            gameRenderer.renderTypeText(),
+            RenderSystem.texture2D(Font.UNIFONT).id(),
+            0,
+            () -> renderDebugHud(partialTick));
+        queue.flush();
     }
 
     private void renderDebugHud(double partialTick) {
-        final Matrix4fStack view = RenderSystem.viewMatrix();
         final Tessellator t = Tessellator.getInstance();
 
-        RenderSystem.setViewMatrix(view);
-        RenderSystem.setProgram(gameRenderer.renderTypeText());
-        RenderSystem.bindTexture2D(Font.UNIFONT);
-
         t.begin();
         t.color(0xffffffff);
         // version info
@@ -269,15 +333,49 @@ public final class RecxClient implements Runnable, AutoCloseable {
             (int) Math.floor(player.position.y()) + ", " +
             (int) Math.floor(player.position.z()) +
             ")");
+        final SectionMeshCache meshes = worldRenderer.meshes();
+        font.drawText(t,
+            0,
+            height - font.yAdvance() * 6,
+            "Meshes: " + meshes.size() + " cached, " + meshes.drawCalls() + " draws, " + meshes.uploads() +
+            " uploads, " + meshes.pendingCount() + " pending");
+        font.drawText(t,
+            0,
+            height - font.yAdvance() * 7,
+            "Blocks: " + meshes.renderedBlocks() + " drawn in " + meshes.renderedQuads() + " quads");
+        final AutoSaver.Metrics save = autoSaver.metrics();
+        font.drawText(t,
+            0,
+            height - font.yAdvance() * 8,
+            "Autosave: " + save.writtenChunks() + "/" + save.snapshotChunks() + " chunks, " +
+            save.bytesWritten() / 1024 + " KiB in " + save.saveNanos() / 1_000_000 + " ms (snapshot " +
+            save.snapshotNanos() / 1_000 + " us)");
+        font.drawText(t,
+            0,
+            height - font.yAdvance() * 9,
+            "Batch: peak " + t.peakVertexCount() + "/" + t.vertexCapacity() + " vertices, " +
+            t.peakIndexCount() + " indices, " + t.growCount() + " grows");
+        final RenderQueue.Stats queue = gameRenderer.renderQueue().stats();
+        font.drawText(t,
+            0,
+            height - font.yAdvance() * 10,
+            "Queue: " + queue.drawCount() + " draws, programs " + queue.unsortedProgramSwitches() + " -> " +
+            queue.programSwitches() + ", textures " + queue.unsortedTextureSwitches() + " -> " + queue.textureSwitches());
+        font.drawText(t,
+            0,
+            height - font.yAdvance() * 11,
+            "GL state: " + GLStateManager.issuedCalls() + " issued, " + GLStateManager.elidedCalls() + " elided, " +
+            RenderSystem.frameUniforms().writes() + " frame uniform writes");
         t.end();
-
-        RenderSystem.bindTexture2D(0);
-        RenderSystem.setProgram(null);
     }
 
     private void render(double partialTick) {
         renderWorld(partialTick);
         renderGui(partialTick);
+        gameRenderer.renderQueue().endFrame();
+        GLStateManager.endFrame();
+        RenderSystem.frameUniforms().endFrame();
+        Tessellator.getInstance().endFrame();
 
         GLFW.swapBuffers(window);
     }
@@ -300,9 +398,31 @@ public final class RecxClient implements Runnable, AutoCloseable {
         }
     }
 
+    private void saveWorld() {
+        try (WorldStorage storage = worldStorage; AutoSaver saver = autoSaver) {
+            if (saver != null) {
+                // the final save; closing the saver waits for it
+                saver.save(world, player);
+            } else {
+                world.save();
+                storage.writeLevel(world, player);
+            }
+        } catch (IOException e) {
+            // todo: log
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public void close() {
+        if (world != null) {
+            saveWorld();
+        }
+        if (worldRenderer != null) {
+            worldRenderer.close();
+        }
         RenderSystem.deleteTextures();
+        RenderSystem.deleteFrameUniforms();
         gameRenderer.close();
 
         Callbacks.free(window);
@@ -354,6 +474,10 @@ public final class RecxClient implements Runnable, AutoCloseable {
         return world;
     }
 
+    public AutoSaver autoSaver() {
+        return autoSaver;
+    }
+
     public WorldRenderer worldRenderer() {
         return worldRenderer;
     }
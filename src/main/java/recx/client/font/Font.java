@@ -54,11 +54,7 @@ public abstract class Font {
             final float v1 = uv(yo + h);
             final float x1 = x0 + w;
             final float y1 = y + h;
-            batch.indices(0, 1, 2, 2, 3, 0);
-            batch.texCoords(u0, v0).vertex(x0, y1).emit();
-            batch.texCoords(u0, v1).vertex(x0, y).emit();
-            batch.texCoords(u1, v1).vertex(x1, y).emit();
-            batch.texCoords(u1, v0).vertex(x1, y1).emit();
+            batch.quad(x0, y, x1, y1, 0f, u0, v0, u1, v1);
             x0 += w;
         }
     }
@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.gl;
+
+import org.joml.Matrix4fc;
+import org.joml.Vector4fc;
+import org.overrun.glib.gl.GL;
+import org.overrun.glib.joml.Matrixn;
+import org.overrun.glib.joml.Vectorn;
+import org.overrun.glib.util.MemoryStack;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentScope;
+
+/**
+ * The uniform buffer of the per-view data shared by all programs, bound at {@link #BINDING}.
+ * <p>
+ * The shaders declare it as the std140 block {@value #BLOCK_NAME}:
+ * <pre>{@code
+ * layout(std140) uniform Frame {
+ *     mat4 ProjectionViewMatrix;
+ *     vec4 ColorModulator;
+ * };
+ * }</pre>
+ * The setters only mark the data dirty; {@link #flush()} writes it into the next slot of the buffer
+ * and binds that slot, so the draws already issued keep reading their own slot.
+ * When the slots run out, the buffer is orphaned and the writes start over.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class FrameUniformBuffer implements AutoCloseable {
+    public static final String BLOCK_NAME = "Frame";
+    public static final int BINDING = 0;
+    /**
+     * The std140 size of the block: a mat4 and a vec4.
+     */
+    public static final int SIZE = 64 + 16;
+    private static final int SLOT_COUNT = 256;
+    private final MemorySegment data = MemorySegment.allocateNative(SIZE, SegmentScope.auto());
+    private final MemorySegment colorModulator = data.asSlice(64);
+    private final long slotSize;
+    private final int id;
+    private int slot = 0;
+    private boolean dirty = true;
+    private int writes = 0;
+    private int lastWrites = 0;
+
+    /**
+     * Creates the buffer. The GL context must be current.
+     */
+    public FrameUniformBuffer() {
+        final int[] alignment = new int[1];
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            GL.getIntegerv(stack, GL.UNIFORM_BUFFER_OFFSET_ALIGNMENT, alignment);
+        }
+        final long align = Math.max(1, alignment[0]);
+        this.slotSize = (SIZE + align - 1) / align * align;
+        this.id = GL.genBuffer();
+        GLStateManager.bindUniformBuffer(id);
+        GL.bufferData(GL.UNIFORM_BUFFER, slotSize * SLOT_COUNT, GL.DYNAMIC_DRAW);
+    }
+
+    public void setProjectionViewMatrix(Matrix4fc value) {
+        Matrixn.put(value, data);
+        dirty = true;
+    }
+
+    public void setColorModulator(Vector4fc value) {
+        Vectorn.put(value, colorModulator);
+        dirty = true;
+    }
+
+    /**
+     * Uploads the data if it changed since the last flush, and binds it for the next draws.
+     */
+    public void flush() {
+        if (!dirty) return;
+        dirty = false;
+        GLStateManager.bindUniformBuffer(id);
+        if (slot == SLOT_COUNT) {
+            // the previous draws may still read the old storage
+            GL.bufferData(GL.UNIFORM_BUFFER, slotSize * SLOT_COUNT, GL.DYNAMIC_DRAW);
+            slot = 0;
+        }
+        final long offset = slot * slotSize;
+        GL.bufferSubData(GL.UNIFORM_BUFFER, offset, SIZE, data);
+        GLStateManager.bindUniformBufferRange(BINDING, id, offset, SIZE);
+        slot++;
+        writes++;
+    }
+
+    /**
+     * Publishes the count of the writes of the frame, and resets it.
+     */
+    public void endFrame() {
+        lastWrites = writes;
+        writes = 0;
+    }
+
+    /**
+     * Gets the count of the writes in the last frame.
+     *
+     * @return the count.
+     */
+    public int writes() {
+        return lastWrites;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    @Override
+    public void close() {
+        GLStateManager.deleteBuffer(id);
+    }
+}
@@ -19,23 +19,40 @@ package recx.client.gl;
 import org.overrun.glib.gl.GL;
 
 /**
+ * The data types of the vertex attributes.
+ * <p>
+ * The packed types hold all four components in {@link #byteSize()} bytes:
+ * x, y and z in 10 bits each from the lowest bits, and w in the highest 2 bits.
+ *
  * @author squid233
  * @since 0.1.0
  */
 public enum GLDataType {
+    BYTE(GL.BYTE, 1, "Byte"),
     UNSIGNED_BYTE(GL.UNSIGNED_BYTE, 1, "Unsigned Byte"),
-    FLOAT(GL.FLOAT, 4, "Float");
+    SHORT(GL.SHORT, 2, "Short"),
+    UNSIGNED_SHORT(GL.UNSIGNED_SHORT, 2, "Unsigned Short"),
+    HALF_FLOAT(GL.HALF_FLOAT, 2, "Half Float"),
+    FLOAT(GL.FLOAT, 4, "Float"),
+    INT_2_10_10_10_REV(GL.INT_2_10_10_10_REV, 4, true, "Int 2.10.10.10 Rev"),
+    UNSIGNED_INT_2_10_10_10_REV(GL.UNSIGNED_INT_2_10_10_10_REV, 4, true, "Unsigned Int 2.10.10.10 Rev");
 
     private final int enumValue;
     private final int byteSize;
+    private final boolean packed;
     private final String stringValue;
 
-    GLDataType(int enumValue, int byteSize, String stringValue) {
+    GLDataType(int enumValue, int byteSize, boolean packed, String stringValue) {
         this.enumValue = enumValue;
         this.byteSize = byteSize;
+        this.packed = packed;
         this.stringValue = stringValue;
     }
 
+    GLDataType(int enumValue, int byteSize, String stringValue) {
+        this(enumValue, byteSize, false, stringValue);
+    }
+
     public int enumValue() {
         return enumValue;
     }
@@ -44,6 +61,10 @@ public enum GLDataType {
         return byteSize;
     }
 
+    public boolean isPacked() {
+        return packed;
+    }
+
     @Override
     public String toString() {
         return stringValue;
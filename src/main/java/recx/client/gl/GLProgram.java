@@ -32,18 +32,30 @@ import static recx.util.Identifier.*;
 import static recx.util.JsonHelper.*;
 
 /**
+ * A linked program with the uniforms declared in its JSON.
+ * <p>
+ * Each uniform name has a slot, an index shared by all programs, which is resolved once with {@link #slot(String)}.
+ * The hot paths get the uniforms with {@link #uniform(int)}, an array read; the built-in uniforms have fixed slots.
+ *
  * @author squid233
  * @since 0.1.0
  */
 public final class GLProgram implements AutoCloseable {
+    private static final Map<String, Integer> SLOTS = new HashMap<>();
     public static final GLProgram ZERO = new GLProgram(0, null);
     public static final String PROJECTION_VIEW_MATRIX = "ProjectionViewMatrix";
     public static final String MODEL_MATRIX = "ModelMatrix";
     public static final String COLOR_MODULATOR = "ColorModulator";
     public static final String SAMPLER0 = "Sampler0";
+    public static final int SLOT_PROJECTION_VIEW_MATRIX = slot(PROJECTION_VIEW_MATRIX);
+    public static final int SLOT_MODEL_MATRIX = slot(MODEL_MATRIX);
+    public static final int SLOT_COLOR_MODULATOR = slot(COLOR_MODULATOR);
+    public static final int SLOT_SAMPLER0 = slot(SAMPLER0);
     private final int id;
     private final VertexFormat format;
     private final Map<String, GLUniform> uniforms = new HashMap<>();
+    private GLUniform[] slots = new GLUniform[0];
+    private GLUniform[] uniformArray = new GLUniform[0];
 
     private GLProgram(int id, VertexFormat format) {
         this.id = id;
@@ -74,6 +86,11 @@ public final class GLProgram implements AutoCloseable {
             if (GL.getProgrami(id, GL.LINK_STATUS) == GL.FALSE) {
                 throw new IllegalStateException("Failed to link the program " + identifier + ": " + GL.getProgramInfoLog(arena, id));
             }
+            // the shared data
+            final int frameBlock = GL.getUniformBlockIndex(arena, id, FrameUniformBuffer.BLOCK_NAME);
+            if (frameBlock != GL.INVALID_INDEX) {
+                GL.uniformBlockBinding(id, frameBlock, FrameUniformBuffer.BINDING);
+            }
             GL.detachShader(id, vsh);
             GL.detachShader(id, fsh);
             GL.deleteShader(vsh);
@@ -106,6 +123,7 @@ public final class GLProgram implements AutoCloseable {
                 }
                 uniforms.put(name, uniform);
             }
+            resolveSlots();
         } catch (Exception e) {
             throw new IllegalStateException("Failed to load program " + identifier, e);
         }
@@ -121,6 +139,41 @@ public final class GLProgram implements AutoCloseable {
         return shader;
     }
 
+    /**
+     * Gets the slot of the uniform of the given name, registering the name on first use.
+     * Resolve it once and keep it, since this looks up a map.
+     *
+     * @param name the name of the uniform.
+     * @return the slot.
+     */
+    public static int slot(String name) {
+        synchronized (SLOTS) {
+            return SLOTS.computeIfAbsent(name, k -> SLOTS.size());
+        }
+    }
+
+    private void resolveSlots() {
+        int length = 0;
+        for (String name : uniforms.keySet()) {
+            length = Math.max(length, slot(name) + 1);
+        }
+        slots = new GLUniform[length];
+        for (var e : uniforms.entrySet()) {
+            slots[slot(e.getKey())] = e.getValue();
+        }
+        uniformArray = uniforms.values().toArray(new GLUniform[0]);
+    }
+
+    /**
+     * Gets the uniform at the given slot.
+     *
+     * @param slot the slot from {@link #slot(String)}.
+     * @return the uniform, or {@code null} if this program doesn't declare it.
+     */
+    public GLUniform uniform(int slot) {
+        return slot < slots.length ? slots[slot] : null;
+    }
+
     public void use() {
         GLStateManager.useProgram(id);
     }
@@ -130,7 +183,7 @@ public final class GLProgram implements AutoCloseable {
     }
 
     public void uploadUniforms() {
-        for (GLUniform uniform : uniforms.values()) {
+        for (GLUniform uniform : uniformArray) {
             uniform.upload(this);
         }
     }
@@ -22,23 +22,63 @@ import org.overrun.glib.util.MemoryStack;
 import java.util.Arrays;
 
 /**
+ * The shadow of the GL state, which skips the calls setting the state it already has.
+ * <p>
+ * All the state the game touches goes through here: the program, the vertex array, the buffer bindings,
+ * the texture units, the viewport, and the blend state.
+ * The element array buffer belongs to the vertex array, so its binding is tracked per vertex array.
+ * The objects must be deleted through here too, since GL unbinds them and may reuse their names.
+ * <p>
+ * Each setter counts the call as issued or elided; {@link #endFrame()} publishes the counts of the frame.
+ *
  * @author squid233
  * @since 0.1.0
  */
 public final class GLStateManager {
+    public static final int MAX_TEXTURE_UNITS = 16;
     private static int currentProgram = 0;
-    private static int textureBinding2D = 0;
+    private static int activeTexture = 0;
+    private static final int[] textureBindings2D = new int[MAX_TEXTURE_UNITS];
+    private static final int[] textureBindingsBuffer = new int[MAX_TEXTURE_UNITS];
     private static int vertexArrayBinding = 0;
     private static int arrayBufferBinding = 0;
+    private static int textureBufferBinding = 0;
+    private static int uniformBufferBinding = 0;
+    private static final int MAX_UNIFORM_BUFFER_BINDINGS = 16;
+    private static final int[] uniformBufferRanges = new int[MAX_UNIFORM_BUFFER_BINDINGS];
+    private static final long[] uniformBufferOffsets = new long[MAX_UNIFORM_BUFFER_BINDINGS];
+    /**
+     * The element array buffer of each vertex array, indexed by the name of the vertex array.
+     */
+    private static int[] elementArrayBufferBindings = new int[64];
     private static final int[] viewport = {0, 0, -1, -1};
     private static boolean blend = false;
     private static int blendSrcRGB = GL.ONE;
     private static int blendSrcAlpha = GL.ONE;
     private static int blendDstRGB = GL.ZERO;
     private static int blendDstAlpha = GL.ZERO;
+    private static int issuedCalls = 0;
+    private static int elidedCalls = 0;
+    private static int lastIssuedCalls = 0;
+    private static int lastElidedCalls = 0;
+
+    private GLStateManager() {
+    }
+
+    /**
+     * Counts a state call.
+     *
+     * @param changed {@code true} if the state changes and the call must be issued.
+     * @return {@code changed}.
+     */
+    private static boolean count(boolean changed) {
+        if (changed) issuedCalls++;
+        else elidedCalls++;
+        return changed;
+    }
 
     public static void useProgram(int program) {
-        if (currentProgram != program) {
+        if (count(currentProgram != program)) {
             currentProgram = program;
             GL.useProgram(program);
         }
@@ -48,19 +88,63 @@ public final class GLStateManager {
         return currentProgram;
     }
 
+    /**
+     * Selects the active texture unit.
+     *
+     * @param unit the index of the unit, from 0.
+     */
+    public static void activeTexture(int unit) {
+        if (count(activeTexture != unit)) {
+            activeTexture = unit;
+            GL.activeTexture(GL.TEXTURE0 + unit);
+        }
+    }
+
+    public static int activeTexture() {
+        return activeTexture;
+    }
+
+    /**
+     * Binds a 2D texture to the unit 0.
+     *
+     * @param texture the texture.
+     */
     public static void bindTexture2D(int texture) {
-        if (textureBinding2D != texture) {
-            textureBinding2D = texture;
+        bindTexture2D(0, texture);
+    }
+
+    public static void bindTexture2D(int unit, int texture) {
+        if (count(textureBindings2D[unit] != texture)) {
+            textureBindings2D[unit] = texture;
+            activeTexture(unit);
             GL.bindTexture(GL.TEXTURE_2D, texture);
         }
     }
 
+    /**
+     * Binds a buffer texture, whose target is {@code GL_TEXTURE_BUFFER}, to the given unit.
+     *
+     * @param unit    the index of the unit.
+     * @param texture the texture.
+     */
+    public static void bindBufferTexture(int unit, int texture) {
+        if (count(textureBindingsBuffer[unit] != texture)) {
+            textureBindingsBuffer[unit] = texture;
+            activeTexture(unit);
+            GL.bindTexture(GL.TEXTURE_BUFFER, texture);
+        }
+    }
+
     public static int textureBinding2D() {
-        return textureBinding2D;
+        return textureBindings2D[0];
+    }
+
+    public static int textureBinding2D(int unit) {
+        return textureBindings2D[unit];
     }
 
     public static void bindVertexArray(int array) {
-        if (vertexArrayBinding != array) {
+        if (count(vertexArrayBinding != array)) {
             vertexArrayBinding = array;
             GL.bindVertexArray(array);
         }
@@ -71,7 +155,7 @@ public final class GLStateManager {
     }
 
     public static void bindArrayBuffer(int buffer) {
-        if (arrayBufferBinding != buffer) {
+        if (count(arrayBufferBinding != buffer)) {
             arrayBufferBinding = buffer;
             GL.bindBuffer(GL.ARRAY_BUFFER, buffer);
         }
@@ -81,9 +165,117 @@ public final class GLStateManager {
         return arrayBufferBinding;
     }
 
+    /**
+     * Binds an element array buffer to the current vertex array.
+     *
+     * @param buffer the buffer.
+     */
+    public static void bindElementArrayBuffer(int buffer) {
+        final int array = vertexArrayBinding;
+        if (array >= elementArrayBufferBindings.length) {
+            elementArrayBufferBindings = Arrays.copyOf(elementArrayBufferBindings, Math.max(array + 1, elementArrayBufferBindings.length * 2));
+        }
+        if (count(elementArrayBufferBindings[array] != buffer)) {
+            elementArrayBufferBindings[array] = buffer;
+            GL.bindBuffer(GL.ELEMENT_ARRAY_BUFFER, buffer);
+        }
+    }
+
+    public static int elementArrayBufferBinding() {
+        final int array = vertexArrayBinding;
+        return array < elementArrayBufferBindings.length ? elementArrayBufferBindings[array] : 0;
+    }
+
+    /**
+     * Binds a buffer to the {@code GL_TEXTURE_BUFFER} target, to fill it.
+     *
+     * @param buffer the buffer.
+     */
+    public static void bindTextureBuffer(int buffer) {
+        if (count(textureBufferBinding != buffer)) {
+            textureBufferBinding = buffer;
+            GL.bindBuffer(GL.TEXTURE_BUFFER, buffer);
+        }
+    }
+
+    /**
+     * Binds a buffer to the generic {@code GL_UNIFORM_BUFFER} target, to fill it.
+     *
+     * @param buffer the buffer.
+     */
+    public static void bindUniformBuffer(int buffer) {
+        if (count(uniformBufferBinding != buffer)) {
+            uniformBufferBinding = buffer;
+            GL.bindBuffer(GL.UNIFORM_BUFFER, buffer);
+        }
+    }
+
+    /**
+     * Binds a range of a buffer to an indexed uniform buffer binding point, which also binds the generic target.
+     *
+     * @param index  the binding point.
+     * @param buffer the buffer.
+     * @param offset the offset of the range.
+     * @param size   the size of the range.
+     */
+    public static void bindUniformBufferRange(int index, int buffer, long offset, long size) {
+        if (count(uniformBufferRanges[index] != buffer || uniformBufferOffsets[index] != offset || uniformBufferBinding != buffer)) {
+            uniformBufferRanges[index] = buffer;
+            uniformBufferOffsets[index] = offset;
+            uniformBufferBinding = buffer;
+            GL.bindBufferRange(GL.UNIFORM_BUFFER, index, buffer, offset, size);
+        }
+    }
+
+    /**
+     * Deletes a buffer, and forgets the bindings of it.
+     *
+     * @param buffer the buffer.
+     */
+    public static void deleteBuffer(int buffer) {
+        if (buffer == 0) return;
+        GL.deleteBuffer(buffer);
+        if (arrayBufferBinding == buffer) arrayBufferBinding = 0;
+        if (textureBufferBinding == buffer) textureBufferBinding = 0;
+        if (uniformBufferBinding == buffer) uniformBufferBinding = 0;
+        for (int i = 0; i < MAX_UNIFORM_BUFFER_BINDINGS; i++) {
+            if (uniformBufferRanges[i] == buffer) uniformBufferRanges[i] = 0;
+        }
+        // GL only detaches it from the current vertex array; the others keep a dangling name
+        for (int i = 0; i < elementArrayBufferBindings.length; i++) {
+            if (elementArrayBufferBindings[i] == buffer) elementArrayBufferBindings[i] = 0;
+        }
+    }
+
+    /**
+     * Deletes a vertex array, and forgets the bindings of it.
+     *
+     * @param array the vertex array.
+     */
+    public static void deleteVertexArray(int array) {
+        if (array == 0) return;
+        GL.deleteVertexArray(array);
+        if (vertexArrayBinding == array) vertexArrayBinding = 0;
+        if (array < elementArrayBufferBindings.length) elementArrayBufferBindings[array] = 0;
+    }
+
+    /**
+     * Deletes a texture, and forgets the bindings of it.
+     *
+     * @param texture the texture.
+     */
+    public static void deleteTexture(int texture) {
+        if (texture == 0) return;
+        GL.deleteTexture(texture);
+        for (int i = 0; i < MAX_TEXTURE_UNITS; i++) {
+            if (textureBindings2D[i] == texture) textureBindings2D[i] = 0;
+            if (textureBindingsBuffer[i] == texture) textureBindingsBuffer[i] = 0;
+        }
+    }
+
     public static void setViewport(int x, int y, int width, int height) {
         viewport();
-        if (viewport[0] != x || viewport[1] != y || viewport[2] != width || viewport[3] != height) {
+        if (count(viewport[0] != x || viewport[1] != y || viewport[2] != width || viewport[3] != height)) {
             viewport[0] = x;
             viewport[1] = y;
             viewport[2] = width;
@@ -102,14 +294,14 @@ public final class GLStateManager {
     }
 
     public static void enableBlend() {
-        if (!blend) {
+        if (count(!blend)) {
             blend = true;
             GL.enable(GL.BLEND);
         }
     }
 
     public static void disableBlend() {
-        if (blend) {
+        if (count(blend)) {
             blend = false;
             GL.disable(GL.BLEND);
         }
@@ -120,7 +312,7 @@ public final class GLStateManager {
     }
 
     public static void blendFuncSeparate(int sfactorRGB, int dfactorRGB, int sfactorAlpha, int dfactorAlpha) {
-        if (blendSrcRGB != sfactorRGB || blendSrcAlpha != sfactorAlpha || blendDstRGB != dfactorRGB || blendDstAlpha != dfactorAlpha) {
+        if (count(blendSrcRGB != sfactorRGB || blendSrcAlpha != sfactorAlpha || blendDstRGB != dfactorRGB || blendDstAlpha != dfactorAlpha)) {
             blendSrcRGB = sfactorRGB;
             blendSrcAlpha = sfactorAlpha;
             blendDstRGB = dfactorRGB;
@@ -148,4 +340,32 @@ public final class GLStateManager {
     public static int blendDstAlpha() {
         return blendDstAlpha;
     }
+
+    /**
+     * Publishes the counts of the issued and elided calls of the frame, and resets them.
+     */
+    public static void endFrame() {
+        lastIssuedCalls = issuedCalls;
+        lastElidedCalls = elidedCalls;
+        issuedCalls = 0;
+        elidedCalls = 0;
+    }
+
+    /**
+     * Gets the count of the state calls issued to GL in the last frame.
+     *
+     * @return the count.
+     */
+    public static int issuedCalls() {
+        return lastIssuedCalls;
+    }
+
+    /**
+     * Gets the count of the state calls skipped in the last frame, since GL already had the state.
+     *
+     * @return the count.
+     */
+    public static int elidedCalls() {
+        return lastElidedCalls;
+    }
 }
@@ -41,6 +41,8 @@ public final class GLUniform implements AutoCloseable {
     private final int location;
     private final MemorySegment buffer;
     private boolean dirty = true;
+    private static boolean capsChecked = false;
+    private static boolean separateShaderObjects = false;
 
     public GLUniform(int type, int location) {
         this.type = type;
@@ -100,11 +102,19 @@ public final class GLUniform implements AutoCloseable {
         Matrixn.put(value, buffer);
     }
 
+    private static boolean hasSeparateShaderObjects() {
+        if (!capsChecked) {
+            capsChecked = true;
+            separateShaderObjects = GLLoader.getExtCapabilities().GL_ARB_separate_shader_objects;
+        }
+        return separateShaderObjects;
+    }
+
     public void upload(GLProgram program) {
         if (!dirty) return;
         dirty = false;
 
-        final boolean arb = program != null && GLLoader.getExtCapabilities().GL_ARB_separate_shader_objects;
+        final boolean arb = program != null && hasSeparateShaderObjects();
         switch (type) {
             case TYPE_INT -> {
                 if (arb) GL.programUniform1iv(program.id(), location, 1, buffer);
@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.gl;
+
+import org.overrun.glib.gl.GL;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
+
+/**
+ * The shared element buffer of {@link GLDrawMode#QUADS}: the pattern {@code 0, 1, 2, 2, 3, 0}
+ * offset by 4 for each quad, uploaded once and grown lazily.
+ * <p>
+ * The indices are {@link GL#UNSIGNED_SHORT} while all the vertices are addressable by a short,
+ * and {@link GL#UNSIGNED_INT} otherwise; the draw calls must use {@link #type()}.
+ * The buffer keeps its name when it grows, so the vertex arrays which bound it stay valid.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class QuadIndexBuffer {
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_SHORT_QUADS = 0x10000 / 4;
+    private static int id = 0;
+    private static int capacity = 0;
+    private static int type = GL.UNSIGNED_SHORT;
+
+    private QuadIndexBuffer() {
+    }
+
+    /**
+     * Binds the buffer to the current vertex array, and grows it to hold the given count of quads.
+     *
+     * @param quadCount the count of the quads to draw.
+     */
+    public static void bind(int quadCount) {
+        if (id == 0) id = GL.genBuffer();
+        GLStateManager.bindElementArrayBuffer(id);
+        ensureCapacity(quadCount);
+    }
+
+    /**
+     * Grows the buffer to hold the given count of quads.
+     * The buffer must be bound to the current vertex array.
+     *
+     * @param quadCount the count of the quads to draw.
+     */
+    public static void ensureCapacity(int quadCount) {
+        if (quadCount <= capacity) return;
+        final int newCapacity = Math.max(quadCount, Math.max(MIN_CAPACITY, capacity * 2));
+        final boolean shorts = newCapacity <= MAX_SHORT_QUADS;
+        try (Arena arena = Arena.openConfined()) {
+            final MemorySegment indices = arena.allocate((long) newCapacity * 6 * (shorts ? Short.BYTES : Integer.BYTES));
+            for (int quad = 0; quad < newCapacity; quad++) {
+                final int base = quad * 4;
+                final long i = quad * 6L;
+                if (shorts) {
+                    indices.setAtIndex(JAVA_SHORT, i, (short) base);
+                    indices.setAtIndex(JAVA_SHORT, i + 1, (short) (base + 1));
+                    indices.setAtIndex(JAVA_SHORT, i + 2, (short) (base + 2));
+                    indices.setAtIndex(JAVA_SHORT, i + 3, (short) (base + 2));
+                    indices.setAtIndex(JAVA_SHORT, i + 4, (short) (base + 3));
+                    indices.setAtIndex(JAVA_SHORT, i + 5, (short) base);
+                } else {
+                    indices.setAtIndex(JAVA_INT, i, base);
+                    indices.setAtIndex(JAVA_INT, i + 1, base + 1);
+                    indices.setAtIndex(JAVA_INT, i + 2, base + 2);
+                    indices.setAtIndex(JAVA_INT, i + 3, base + 2);
+                    indices.setAtIndex(JAVA_INT, i + 4, base + 3);
+                    indices.setAtIndex(JAVA_INT, i + 5, base);
+                }
+            }
+            GL.bufferData(GL.ELEMENT_ARRAY_BUFFER, indices, GL.STATIC_DRAW);
+        }
+        capacity = newCapacity;
+        type = shorts ? GL.UNSIGNED_SHORT : GL.UNSIGNED_INT;
+    }
+
+    /**
+     * Draws the given count of quads from the current vertex array, which must have bound this buffer.
+     *
+     * @param quadCount the count of the quads.
+     */
+    public static void draw(int quadCount) {
+        ensureCapacity(quadCount);
+        GL.drawElements(GL.TRIANGLES, quadCount * 6, type, MemorySegment.NULL);
+    }
+
+    /**
+     * Draws the given count of quads from the current vertex array, starting at the given vertex.
+     *
+     * @param quadCount  the count of the quads.
+     * @param baseVertex the index of the first vertex.
+     */
+    public static void draw(int quadCount, int baseVertex) {
+        ensureCapacity(quadCount);
+        GL.drawElementsBaseVertex(GL.TRIANGLES, quadCount * 6, type, MemorySegment.NULL, baseVertex);
+    }
+
+    /**
+     * Draws the given count of instances of one quad from the current vertex array, which must have bound this buffer.
+     *
+     * @param instanceCount the count of the instances.
+     */
+    public static void drawInstanced(int instanceCount) {
+        ensureCapacity(1);
+        GL.drawElementsInstanced(GL.TRIANGLES, 6, type, MemorySegment.NULL, instanceCount);
+    }
+
+    public static int type() {
+        return type;
+    }
+
+    public static int capacity() {
+        return capacity;
+    }
+
+    public static void free() {
+        if (id != 0) {
+            GLStateManager.deleteBuffer(id);
+            id = 0;
+            capacity = 0;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.gl;
+
+import org.overrun.glib.gl.GL;
+import org.overrun.glib.gl.GLLoader;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+/**
+ * A vertex buffer for data written once per draw, split into {@value #SEGMENT_COUNT} segments, one per frame in flight.
+ * <p>
+ * With {@code ARB_buffer_storage}, the buffer is mapped persistently and coherently, and the vertices are written
+ * straight into the mapped segment. The batches of a frame are sub-allocated one after another in the segment
+ * of the frame; {@link #endFrame()} fences the segment after the last draw of the frame and moves to the next one.
+ * The fence is waited by the first {@link #acquire()} of the frame which reuses the segment, so the CPU only waits
+ * for the frame drawn {@value #SEGMENT_COUNT} frames ago, however many batches a frame has.
+ * Without it, the vertices are written into a staging segment, and each commit orphans the buffer with
+ * {@code glBufferData(NULL)} before uploading, so the driver never waits for the previous draw.
+ * The orphaning path can be forced with {@code -Drecx.render.orphanStreaming=true}.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class StreamBuffer implements AutoCloseable {
+    public static final int SEGMENT_COUNT = 3;
+    private static final long FENCE_TIMEOUT = 1_000_000_000L;
+    private final long segmentSize;
+    private final boolean persistent;
+    private final Arena arena = Arena.openConfined();
+    private final int id;
+    private final MemorySegment memory;
+    private final MemorySegment[] fences = new MemorySegment[SEGMENT_COUNT];
+    private int segment = 0;
+    private long head = 0;
+
+    /**
+     * Creates the buffer. The GL context must be current.
+     *
+     * @param segmentSize the byte size of a segment.
+     */
+    public StreamBuffer(long segmentSize) {
+        this.segmentSize = segmentSize;
+        this.persistent = isPersistentMappingSupported();
+        this.id = GL.genBuffer();
+        GLStateManager.bindArrayBuffer(id);
+        if (persistent) {
+            final long size = segmentSize * SEGMENT_COUNT;
+            final int flags = GL.MAP_WRITE_BIT | GL.MAP_PERSISTENT_BIT | GL.MAP_COHERENT_BIT;
+            GL.bufferStorage(GL.ARRAY_BUFFER, size, MemorySegment.NULL, flags);
+            final MemorySegment pointer = GL.mapBufferRange(GL.ARRAY_BUFFER, 0, size, flags);
+            if (pointer.address() == 0L) {
+                throw new IllegalStateException("Failed to map the stream buffer");
+            }
+            this.memory = MemorySegment.ofAddress(pointer.address(), size, arena.scope());
+        } else {
+            GL.bufferData(GL.ARRAY_BUFFER, segmentSize, GL.STREAM_DRAW);
+            this.memory = arena.allocate(segmentSize);
+        }
+        GLStateManager.bindArrayBuffer(0);
+    }
+
+    /**
+     * Returns {@code true} if the buffers can be mapped persistently.
+     *
+     * @return {@code true} if {@code ARB_buffer_storage} is supported and not disabled.
+     */
+    public static boolean isPersistentMappingSupported() {
+        return !Boolean.getBoolean("recx.render.orphanStreaming") &&
+               GLLoader.getExtCapabilities().GL_ARB_buffer_storage;
+    }
+
+    private void waitFence(int index) {
+        final MemorySegment fence = fences[index];
+        if (fence == null) return;
+        while (true) {
+            final int result = GL.clientWaitSync(fence, GL.SYNC_FLUSH_COMMANDS_BIT, FENCE_TIMEOUT);
+            if (result == GL.ALREADY_SIGNALED || result == GL.CONDITION_SATISFIED) break;
+            if (result == GL.WAIT_FAILED) {
+                throw new IllegalStateException("Failed to wait for the stream buffer");
+            }
+        }
+        GL.deleteSync(fence);
+        fences[index] = null;
+    }
+
+    /**
+     * Gets the memory to write the vertices of the next batch: the unused rest of the segment of the frame.
+     * The first call of a frame waits until the GPU finished reading the segment.
+     *
+     * @return the memory of {@link #remaining()} bytes.
+     */
+    public MemorySegment acquire() {
+        if (persistent) {
+            waitFence(segment);
+            return memory.asSlice(segment * segmentSize + head, segmentSize - head);
+        }
+        return memory;
+    }
+
+    /**
+     * Makes the written bytes of the batch visible to the GPU, and allocates them in the segment of the frame.
+     *
+     * @param byteSize the count of the written bytes.
+     * @return the byte offset of the batch in the buffer.
+     */
+    public long commit(long byteSize) {
+        if (persistent) {
+            final long offset = segment * segmentSize + head;
+            head += byteSize;
+            return offset;
+        }
+        GLStateManager.bindArrayBuffer(id);
+        // orphan the storage which may still be read by the previous draw
+        GL.bufferData(GL.ARRAY_BUFFER, segmentSize, GL.STREAM_DRAW);
+        GL.bufferSubData(GL.ARRAY_BUFFER, 0, byteSize, memory);
+        GLStateManager.bindArrayBuffer(0);
+        return 0L;
+    }
+
+    /**
+     * Fences the segment of the frame after the draw calls reading it, and moves to the next segment.
+     * Called once per frame.
+     */
+    public void endFrame() {
+        if (!persistent || head == 0) return;
+        fences[segment] = GL.fenceSync(GL.SYNC_GPU_COMMANDS_COMPLETE, 0);
+        segment = (segment + 1) % SEGMENT_COUNT;
+        head = 0;
+    }
+
+    /**
+     * Gets the count of the bytes the next batch of the frame can hold.
+     *
+     * @return the byte size.
+     */
+    public long remaining() {
+        return persistent ? segmentSize - head : segmentSize;
+    }
+
+    /**
+     * Gets the count of the bytes committed in the segment of the frame so far.
+     *
+     * @return the byte size, always {@code 0} when orphaning.
+     */
+    public long used() {
+        return persistent ? head : 0L;
+    }
+
+    public long segmentSize() {
+        return segmentSize;
+    }
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            if (fences[i] != null) {
+                GL.deleteSync(fences[i]);
+                fences[i] = null;
+            }
+        }
+        if (persistent) {
+            GLStateManager.bindArrayBuffer(id);
+            GL.unmapBuffer(GL.ARRAY_BUFFER);
+            GLStateManager.bindArrayBuffer(0);
+        }
+        GLStateManager.deleteBuffer(id);
+        arena.close();
+    }
+}
@@ -27,7 +27,23 @@ import java.lang.foreign.MemorySegment;
 public enum VertexElement {
     POSITION(0, 3, GLDataType.FLOAT, false),
     COLOR(1, 4, GLDataType.UNSIGNED_BYTE, true),
-    UV0(2, 2, GLDataType.FLOAT, false);
+    UV0(2, 2, GLDataType.FLOAT, false),
+    /**
+     * The region of a tiled texture in the atlas: u, v, width and height.
+     */
+    TEX_REGION(3, 4, GLDataType.FLOAT, false),
+    /**
+     * The position in whole blocks local to the section, packed as x, y and z, with a 2-bit shade in w.
+     */
+    PACKED_POSITION(0, 4, GLDataType.UNSIGNED_INT_2_10_10_10_REV, false),
+    /**
+     * The {@link #TEX_REGION} as normalized unsigned shorts.
+     */
+    TEX_REGION_NORMALIZED(3, 4, GLDataType.UNSIGNED_SHORT, true),
+    /**
+     * The instance of a sprite: x, y and z of the bottom-left corner, and the sprite index.
+     */
+    SPRITE_INSTANCE(2, 4, GLDataType.SHORT, false);
 
     private final int index;
     private final int size;
@@ -35,6 +51,9 @@ public enum VertexElement {
     private final boolean normalized;
 
     VertexElement(int index, int size, GLDataType type, boolean normalized) {
+        if (type.isPacked() && size != 4) {
+            throw new IllegalArgumentException("The packed type " + type + " must have 4 components");
+        }
         this.index = index;
         this.size = size;
         this.type = type;
@@ -42,8 +61,22 @@ public enum VertexElement {
     }
 
     public void specificPointer(int stride, MemorySegment pointer) {
+        specificPointer(stride, pointer, 0);
+    }
+
+    /**
+     * Specifies the pointer of this element.
+     *
+     * @param stride  the stride.
+     * @param pointer the offset.
+     * @param divisor the count of instances sharing a value, or 0 to advance per vertex.
+     */
+    public void specificPointer(int stride, MemorySegment pointer, int divisor) {
         GL.enableVertexAttribArray(index);
         GL.vertexAttribPointer(index, size, type.enumValue(), normalized, stride, pointer);
+        if (divisor != 0) {
+            GL.vertexAttribDivisor(index, divisor);
+        }
     }
 
     public int index() {
@@ -63,6 +96,6 @@ public enum VertexElement {
     }
 
     public int byteSize() {
-        return size * type.byteSize();
+        return type.isPacked() ? type.byteSize() : size * type.byteSize();
     }
 }
@@ -36,13 +36,44 @@ public final class VertexFormat {
         Map.entry("Color", VertexElement.COLOR),
         Map.entry("UV0", VertexElement.UV0)
     );
+    /**
+     * The format of the terrain. The UV0 is in blocks and repeats across the texture region.
+     */
+    public static final VertexFormat POSITION_COLOR_TEX_REGION = new VertexFormat(
+        Map.entry("Position", VertexElement.POSITION),
+        Map.entry("Color", VertexElement.COLOR),
+        Map.entry("UV0", VertexElement.UV0),
+        Map.entry("TexRegion", VertexElement.TEX_REGION)
+    );
+    /**
+     * The compact format of the terrain, 12 bytes per vertex.
+     * The texture coordinates are derived from the position, which starts at whole blocks.
+     */
+    public static final VertexFormat PACKED_POSITION_TEX_REGION = new VertexFormat(
+        Map.entry("Position", VertexElement.PACKED_POSITION),
+        Map.entry("TexRegion", VertexElement.TEX_REGION_NORMALIZED)
+    );
+    /**
+     * The per-instance format of the sprites, 12 bytes per quad.
+     */
+    public static final VertexFormat SPRITE_INSTANCE = new VertexFormat(1,
+        Map.entry("Instance", VertexElement.SPRITE_INSTANCE),
+        Map.entry("Color", VertexElement.COLOR)
+    );
 
     private final Map<String, VertexElement> elementMap;
     private final Map<String, MemorySegment> offsetMap;
     private final int stride;
+    private final int divisor;
 
     @SafeVarargs
     private VertexFormat(Map.Entry<String, VertexElement>... entries) {
+        this(0, entries);
+    }
+
+    @SafeVarargs
+    private VertexFormat(int divisor, Map.Entry<String, VertexElement>... entries) {
+        this.divisor = divisor;
         this.elementMap = Map.ofEntries(entries);
 
         final var map = HashMap.<String, MemorySegment>newHashMap(entries.length);
@@ -58,7 +89,7 @@ public final class VertexFormat {
     }
 
     public void specificPointers() {
-        elementMap.forEach((name, element) -> element.specificPointer(stride, offsetMap.get(name)));
+        elementMap.forEach((name, element) -> element.specificPointer(stride, offsetMap.get(name), divisor));
     }
 
     public void forEachElement(BiConsumer<? super String, ? super VertexElement> action) {
@@ -76,4 +107,13 @@ public final class VertexFormat {
     public int stride() {
         return stride;
     }
+
+    /**
+     * Gets the count of instances sharing a vertex of this format.
+     *
+     * @return the divisor, or 0 if the vertices advance per vertex.
+     */
+    public int divisor() {
+        return divisor;
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import recx.client.texture.TextureAtlas;
+import recx.registry.BuiltinRegistries;
+import recx.util.Identifier;
+import recx.world.block.Block;
+
+/**
+ * The block models baked after the atlas is packed, indexed by the raw id of the block.
+ * <p>
+ * Each model is the texture region in the atlas ({@value #REGION_STRIDE} floats: u0, v0, u1, v1).
+ * The terrain mesher sets it with {@link #texRegion(int, MeshBuilder)}, and the sprite batch indexes
+ * {@link #regions()} by raw id.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class BakedBlockModels {
+    public static final int REGION_STRIDE = 4;
+    private final float[] regions;
+
+    /**
+     * Creates the models of the given texture regions.
+     *
+     * @param regions the regions, indexed by {@code rawId * REGION_STRIDE}.
+     */
+    BakedBlockModels(float[] regions) {
+        this.regions = regions;
+    }
+
+    /**
+     * Bakes the models of all registered blocks.
+     *
+     * @param atlas the packed block atlas.
+     * @return the baked models.
+     */
+    public static BakedBlockModels bake(TextureAtlas atlas) {
+        int maxRawId = 0;
+        for (Block block : BuiltinRegistries.BLOCK) {
+            maxRawId = Math.max(maxRawId, BuiltinRegistries.BLOCK.getRawId(block));
+        }
+        final float[] regions = new float[(maxRawId + 1) * REGION_STRIDE];
+        for (Block block : BuiltinRegistries.BLOCK) {
+            if (block.isAir()) continue;
+            final int rawId = BuiltinRegistries.BLOCK.getRawId(block);
+            final Identifier texture = BlockRenderer.getTexture(block);
+            final float u0 = atlas.normalizeByWidth(atlas.getU0(texture));
+            final float v0 = atlas.normalizeByHeight(atlas.getV0(texture));
+            final float u1 = atlas.normalizeByWidth(atlas.getU1(texture));
+            final float v1 = atlas.normalizeByHeight(atlas.getV1(texture));
+            final int r = rawId * REGION_STRIDE;
+            regions[r] = u0;
+            regions[r + 1] = v0;
+            regions[r + 2] = u1;
+            regions[r + 3] = v1;
+        }
+        return new BakedBlockModels(regions);
+    }
+
+    /**
+     * Sets the texture region of a block to the given builder.
+     *
+     * @param rawId   the raw id of the block.
+     * @param builder the builder.
+     */
+    public void texRegion(int rawId, MeshBuilder builder) {
+        final int r = rawId * REGION_STRIDE;
+        builder.texRegion(regions[r], regions[r + 1], regions[r + 2], regions[r + 3]);
+    }
+
+    /**
+     * Gets the texture regions, indexed by {@code rawId * REGION_STRIDE}. The array must not be modified.
+     *
+     * @return the regions.
+     */
+    public float[] regions() {
+        return regions;
+    }
+}
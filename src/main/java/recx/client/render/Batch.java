@@ -48,4 +48,38 @@ public interface Batch {
     Batch texCoords(float u, float v);
 
     void emit();
+
+    /**
+     * Emits a quad from {@code (x0, y0)} to {@code (x1, y1)} with the current color, and its indices
+     * in the pattern of {@link recx.client.gl.GLDrawMode#QUADS}.
+     * The top-left corner maps to {@code (u0, v0)} and the bottom-right corner maps to {@code (u1, v1)}.
+     *
+     * @param x0 the left x.
+     * @param y0 the bottom y.
+     * @param x1 the right x.
+     * @param y1 the top y.
+     * @param z  the z.
+     * @param u0 the left u.
+     * @param v0 the top v.
+     * @param u1 the right u.
+     * @param v1 the bottom v.
+     */
+    default void quad(float x0, float y0, float x1, float y1, float z, float u0, float v0, float u1, float v1) {
+        indices(0, 1, 2, 2, 3, 0);
+        texCoords(u0, v0).vertex(x0, y1, z).emit();
+        texCoords(u0, v1).vertex(x0, y0, z).emit();
+        texCoords(u1, v1).vertex(x1, y0, z).emit();
+        texCoords(u1, v0).vertex(x1, y1, z).emit();
+    }
+
+    /**
+     * Emits a quad with the given color, which becomes the current color.
+     *
+     * @param rgba the packed color in RGBA.
+     * @see #quad(float, float, float, float, float, float, float, float, float)
+     */
+    default void quad(float x0, float y0, float x1, float y1, float z, float u0, float v0, float u1, float v1, int rgba) {
+        color(rgba);
+        quad(x0, y0, x1, y1, z, u0, v0, u1, v1);
+    }
 }
@@ -21,28 +21,74 @@ import recx.util.Identifier;
 import recx.world.block.Block;
 import recx.world.block.Blocks;
 
-import java.util.Objects;
-
 /**
  * @author squid233
  * @since 0.1.0
  */
 public final class BlockRenderer {
-    @Deprecated(since = "0.1.0")
-    public static void render(Block block, Batch batch, double partialTick, int x, int y, int z) {
+    private static BakedBlockModels models;
+
+    /**
+     * Bakes the block models. Must be called after the block atlas is packed, and before any block is rendered.
+     *
+     * @param atlas the block atlas.
+     */
+    public static void bakeModels(TextureAtlas atlas) {
+        models = BakedBlockModels.bake(atlas);
+    }
+
+    public static BakedBlockModels models() {
+        if (models == null) {
+            throw new IllegalStateException("The block models are not baked");
+        }
+        return models;
+    }
+
+    /**
+     * Gets the texture of the given block in the block atlas.
+     *
+     * @param block the block.
+     * @return the identifier of the texture.
+     */
+    public static Identifier getTexture(Block block) {
         if (block.texture == null) {
             final Identifier id = block.getId();
             block.texture = new Identifier(id.namespace(), "block/" + (block == Blocks.GRASS_BLOCK ? id.path() + "_side" : id.path()));
         }
-        final TextureAtlas atlas = Objects.requireNonNull(RenderSystem.getTexture2D(TextureAtlas.BLOCK));
-        final float u0 = atlas.normalizeByWidth(atlas.getU0(block.texture));
-        final float u1 = atlas.normalizeByWidth(atlas.getU1(block.texture));
-        final float v0 = atlas.normalizeByHeight(atlas.getV0(block.texture));
-        final float v1 = atlas.normalizeByHeight(atlas.getV1(block.texture));
-        batch.indices(0, 1, 2, 2, 3, 0).color(z == 1 ? 0xffffffff : 0x808080ff);
-        batch.texCoords(u0, v0).vertex(x, y + 1, z).emit();
-        batch.texCoords(u0, v1).vertex(x, y, z).emit();
-        batch.texCoords(u1, v1).vertex(x + 1, y, z).emit();
-        batch.texCoords(u1, v0).vertex(x + 1, y + 1, z).emit();
+        return block.texture;
+    }
+
+    /**
+     * Gets the color of the blocks in the given z layer. The back layers are darker.
+     *
+     * @param z the z layer.
+     * @return the color in RGBA.
+     */
+    public static int getLayerColor(int z) {
+        return z == 1 ? 0xffffffff : 0x808080ff;
+    }
+
+    /**
+     * Gets the shade of the blocks in the given z layer, in the packed vertex format. The terrain shader maps
+     * each shade to the same brightness as {@link #getLayerColor(int)}: 0 is the front layer and 1 is the back layer.
+     *
+     * @param z the z layer.
+     * @return the shade.
+     */
+    public static int getLayerShade(int z) {
+        return z == 1 ? 0 : 1;
+    }
+
+    /**
+     * Renders the block of the given raw id as an instance, the raw id being the sprite index.
+     *
+     * @param rawId the raw id of the block.
+     * @param batch the sprite batch, with the sprites of {@link BakedBlockModels#regions()}.
+     * @param x     the x.
+     * @param y     the y.
+     * @param z     the z layer.
+     */
+    public static void render(int rawId, SpriteBatch batch, int x, int y, int z) {
+        batch.sprite(x, y, z, rawId, getLayerColor(z));
     }
 }
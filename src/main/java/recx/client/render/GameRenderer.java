@@ -17,6 +17,7 @@
 package recx.client.render;
 
 import recx.client.gl.GLProgram;
+import recx.client.gl.QuadIndexBuffer;
 import recx.client.gl.VertexFormat;
 import recx.util.Identifier;
 
@@ -28,12 +29,19 @@ public final class GameRenderer implements AutoCloseable {
     private GLProgram positionColorProgram;
     private GLProgram positionColorTexProgram;
     private GLProgram renderTypeTextProgram;
+    private GLProgram renderTypeTerrainProgram;
+    private GLProgram renderTypeSpriteProgram;
+    private SpriteBatch spriteBatch;
     private final Camera camera = new Camera();
+    private final RenderQueue renderQueue = new RenderQueue();
 
     public void init() {
         positionColorProgram = new GLProgram(Identifier.recx("core/position_color"), VertexFormat.POSITION_COLOR);
         positionColorTexProgram = new GLProgram(Identifier.recx("core/position_color_tex"), VertexFormat.POSITION_COLOR_TEX);
         renderTypeTextProgram = new GLProgram(Identifier.recx("core/rendertype_text"), VertexFormat.POSITION_COLOR_TEX);
+        renderTypeTerrainProgram = new GLProgram(Identifier.recx("core/rendertype_terrain"), VertexFormat.PACKED_POSITION_TEX_REGION);
+        renderTypeSpriteProgram = new GLProgram(Identifier.recx("core/rendertype_sprite"), VertexFormat.SPRITE_INSTANCE);
+        spriteBatch = new SpriteBatch();
     }
 
     public GLProgram positionColor() {
@@ -48,15 +56,35 @@ public final class GameRenderer implements AutoCloseable {
         return renderTypeTextProgram;
     }
 
+    public GLProgram renderTypeTerrain() {
+        return renderTypeTerrainProgram;
+    }
+
+    public GLProgram renderTypeSprite() {
+        return renderTypeSpriteProgram;
+    }
+
+    public SpriteBatch spriteBatch() {
+        return spriteBatch;
+    }
+
     public Camera camera() {
         return camera;
     }
 
+    public RenderQueue renderQueue() {
+        return renderQueue;
+    }
+
     @Override
     public void close() {
         positionColorProgram.close();
         positionColorTexProgram.close();
         renderTypeTextProgram.close();
+        renderTypeTerrainProgram.close();
+        renderTypeSpriteProgram.close();
+        spriteBatch.close();
         Tessellator.free();
+        QuadIndexBuffer.free();
     }
 }
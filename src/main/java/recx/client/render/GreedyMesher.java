@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import recx.world.chunk.ChunkSection;
+import recx.world.chunk.PalettedContainer;
+
+/**
+ * Builds the mesh of a section by merging the rectangles of identical visible blocks of each z layer into one quad.
+ * <p>
+ * The quads are built in {@link recx.client.gl.VertexFormat#PACKED_POSITION_TEX_REGION}: the texture coordinates
+ * count blocks, and the shader repeats the texture region of the block once per block, so the pixels match
+ * one quad per block. The back layers are emitted first, keeping the blending order.
+ * <p>
+ * The visible cells come from {@link ChunkSection#visibleBits(int, long[])}; only those cells are read,
+ * and their texture regions come from the {@link BakedBlockModels} by raw id.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class GreedyMesher {
+    private static final int SIZE = ChunkSection.SIZE;
+
+    private GreedyMesher() {
+    }
+
+    /**
+     * Builds the mesh of the given section, in the local coordinates of the section.
+     *
+     * @param section the section.
+     * @param builder the builder in {@link recx.client.gl.VertexFormat#PACKED_POSITION_TEX_REGION}
+     *                or {@link recx.client.gl.VertexFormat#POSITION_COLOR_TEX_REGION}.
+     * @return the count of the visible blocks.
+     */
+    public static int build(ChunkSection section, MeshBuilder builder) {
+        return build(section, BlockRenderer.models(), builder);
+    }
+
+    /**
+     * Builds the mesh of the given section with the given models, in the local coordinates of the section.
+     *
+     * @param section the section.
+     * @param models  the models of the blocks.
+     * @param builder the builder in {@link recx.client.gl.VertexFormat#PACKED_POSITION_TEX_REGION}
+     *                or {@link recx.client.gl.VertexFormat#POSITION_COLOR_TEX_REGION}.
+     * @return the count of the visible blocks.
+     */
+    public static int build(ChunkSection section, BakedBlockModels models, MeshBuilder builder) {
+        final PalettedContainer blocks = section.blocks();
+        final int depth = section.depth();
+        // the raw id + 1 of the visible block of each cell of a layer, indexed by y * SIZE + x; 0 if invisible
+        final int[] mask = new int[SIZE * SIZE];
+        final long[] visible = new long[ChunkSection.WORDS_PER_LAYER];
+        int visibleCount = 0;
+        builder.begin();
+        for (int z = 0; z < depth; z++) {
+            final int layer = z * SIZE * SIZE;
+            section.visibleBits(z, visible);
+            for (int word = 0; word < visible.length; word++) {
+                visibleCount += Long.bitCount(visible[word]);
+                for (long bits = visible[word]; bits != 0; bits &= bits - 1) {
+                    final int cell = word << 6 | Long.numberOfTrailingZeros(bits);
+                    mask[cell] = blocks.getRawId(layer | cell) + 1;
+                }
+            }
+            builder.color(BlockRenderer.getLayerColor(z)).shade(BlockRenderer.getLayerShade(z));
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; ) {
+                    final int block = mask[y * SIZE + x];
+                    if (block == 0) {
+                        x++;
+                        continue;
+                    }
+                    int width = 1;
+                    while (x + width < SIZE && mask[y * SIZE + x + width] == block) {
+                        width++;
+                    }
+                    int height = 1;
+                    grow:
+                    while (y + height < SIZE) {
+                        final int row = (y + height) * SIZE;
+                        for (int i = x; i < x + width; i++) {
+                            if (mask[row + i] != block) break grow;
+                        }
+                        height++;
+                    }
+                    for (int j = y; j < y + height; j++) {
+                        for (int i = x; i < x + width; i++) {
+                            mask[j * SIZE + i] = 0;
+                        }
+                    }
+                    quad(builder, models, block - 1, x, y, z, width, height);
+                    x += width;
+                }
+            }
+        }
+        builder.end();
+        return visibleCount;
+    }
+
+    private static void quad(MeshBuilder builder, BakedBlockModels models, int rawId, int x, int y, int z, int width, int height) {
+        models.texRegion(rawId, builder);
+        // the texture coordinates count blocks
+        builder.quad(x, y, x + width, y + height, z, 0f, 0f, width, height);
+    }
+}
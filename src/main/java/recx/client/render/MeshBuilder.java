@@ -0,0 +1,266 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import recx.client.gl.GLDrawMode;
+import recx.client.gl.VertexFormat;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentScope;
+
+import static java.lang.foreign.ValueLayout.*;
+
+/**
+ * A batch which builds a mesh on the CPU, without calling GL.
+ * <p>
+ * The format is {@link VertexFormat#POSITION_COLOR_TEX}, {@link VertexFormat#POSITION_COLOR_TEX_REGION}
+ * or {@link VertexFormat#PACKED_POSITION_TEX_REGION}; the texture region is only written in the latter two.
+ * <p>
+ * In the packed format, the positions must be whole numbers from 0 to 1023, and the texture coordinates
+ * and the color are dropped. Instead, the 2-bit {@link #shade(int)} indexes the shade table of the terrain shader.
+ * <p>
+ * In {@link GLDrawMode#QUADS} the indices are implied by the shared {@link QuadIndexBuffer},
+ * and no index is written, like the {@link Tessellator} does; {@link GLDrawMode#TRIANGLES} writes its own indices.
+ * <p>
+ * The buffers grow as needed. {@link #flush()} does nothing; the built mesh is taken with
+ * {@link #vertexData()} and {@link #indexData()}.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class MeshBuilder implements Batch {
+    private final VertexFormat format;
+    private final boolean indexed;
+    private final int stride;
+    private final boolean hasRegion;
+    private final boolean packed;
+    private MemorySegment vertices;
+    private MemorySegment indices;
+    private float x, y, z;
+    private int color = -1;
+    private int shade;
+    private float u, v;
+    private float regionU, regionV, regionWidth, regionHeight;
+    private short packedRegionU, packedRegionV, packedRegionWidth, packedRegionHeight;
+    private long offset;
+    private int vertexCount, indexCount;
+
+    /**
+     * Creates a builder.
+     *
+     * @param format             the vertex format.
+     * @param drawMode           {@link GLDrawMode#QUADS} or {@link GLDrawMode#TRIANGLES}.
+     * @param initialVertexCount the initial capacity in vertices.
+     */
+    public MeshBuilder(VertexFormat format, GLDrawMode drawMode, int initialVertexCount) {
+        if (drawMode != GLDrawMode.QUADS && drawMode != GLDrawMode.TRIANGLES) {
+            throw new IllegalArgumentException("Unsupported draw mode " + drawMode);
+        }
+        if (format != VertexFormat.POSITION_COLOR_TEX &&
+            format != VertexFormat.POSITION_COLOR_TEX_REGION &&
+            format != VertexFormat.PACKED_POSITION_TEX_REGION) {
+            throw new IllegalArgumentException("Unsupported vertex format");
+        }
+        this.format = format;
+        this.indexed = drawMode != GLDrawMode.QUADS;
+        this.stride = format.stride();
+        this.packed = format == VertexFormat.PACKED_POSITION_TEX_REGION;
+        this.hasRegion = packed || format == VertexFormat.POSITION_COLOR_TEX_REGION;
+        this.vertices = MemorySegment.allocateNative((long) initialVertexCount * stride, SegmentScope.auto());
+        this.indices = indexed ?
+            MemorySegment.allocateNative((long) initialVertexCount * 6 / 4 * Integer.BYTES, SegmentScope.auto()) :
+            MemorySegment.NULL;
+    }
+
+    private static MemorySegment grow(MemorySegment segment, long used, long required) {
+        if (required <= segment.byteSize()) {
+            return segment;
+        }
+        final MemorySegment newSegment = MemorySegment.allocateNative(Math.max(required, segment.byteSize() * 2), SegmentScope.auto());
+        MemorySegment.copy(segment, 0, newSegment, 0, used);
+        return newSegment;
+    }
+
+    @Override
+    public void begin() {
+        offset = 0;
+        vertexCount = 0;
+        indexCount = 0;
+    }
+
+    @Override
+    public void end() {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public MeshBuilder indices(int... indices) {
+        if (!indexed) return this;
+        this.indices = grow(this.indices, (long) indexCount * Integer.BYTES, (long) (indexCount + indices.length) * Integer.BYTES);
+        for (int index : indices) {
+            this.indices.setAtIndex(JAVA_INT, indexCount, index + vertexCount);
+            indexCount++;
+        }
+        return this;
+    }
+
+    @Override
+    public MeshBuilder vertex(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    @Override
+    public MeshBuilder color(byte r, byte g, byte b, byte a) {
+        this.color = (r & 0xff) << 24 | (g & 0xff) << 16 | (b & 0xff) << 8 | a & 0xff;
+        return this;
+    }
+
+    @Override
+    public MeshBuilder color(int rgba) {
+        this.color = rgba;
+        return this;
+    }
+
+    /**
+     * Sets the shade of the packed format, from 0 to 3; see {@link BlockRenderer#getLayerShade(int)}.
+     * The other formats ignore it.
+     *
+     * @param shade the shade.
+     * @return this.
+     */
+    public MeshBuilder shade(int shade) {
+        this.shade = shade & 3;
+        return this;
+    }
+
+    @Override
+    public MeshBuilder texCoords(float u, float v) {
+        this.u = u;
+        this.v = v;
+        return this;
+    }
+
+    /**
+     * Sets the texture region in the atlas, which the texture coordinates repeat across.
+     *
+     * @param u0 the left u.
+     * @param v0 the top v.
+     * @param u1 the right u.
+     * @param v1 the bottom v.
+     * @return this.
+     */
+    public MeshBuilder texRegion(float u0, float v0, float u1, float v1) {
+        this.regionU = u0;
+        this.regionV = v0;
+        this.regionWidth = u1 - u0;
+        this.regionHeight = v1 - v0;
+        if (packed) {
+            packedRegionU = unorm16(regionU);
+            packedRegionV = unorm16(regionV);
+            packedRegionWidth = unorm16(regionWidth);
+            packedRegionHeight = unorm16(regionHeight);
+        }
+        return this;
+    }
+
+    private static short unorm16(float value) {
+        return (short) Math.round(Math.min(Math.max(value, 0f), 1f) * 65535f);
+    }
+
+    private int packPosition(float x, float y, float z) {
+        return (int) x & 0x3ff | ((int) y & 0x3ff) << 10 | ((int) z & 0x3ff) << 20 | shade << 30;
+    }
+
+    private void put(long offset, float x, float y, float z, float u, float v) {
+        if (packed) {
+            vertices.set(JAVA_INT_UNALIGNED, offset, packPosition(x, y, z));
+            vertices.set(JAVA_SHORT_UNALIGNED, offset + 4, packedRegionU);
+            vertices.set(JAVA_SHORT_UNALIGNED, offset + 6, packedRegionV);
+            vertices.set(JAVA_SHORT_UNALIGNED, offset + 8, packedRegionWidth);
+            vertices.set(JAVA_SHORT_UNALIGNED, offset + 10, packedRegionHeight);
+            return;
+        }
+        vertices.set(JAVA_FLOAT_UNALIGNED, offset, x);
+        vertices.set(JAVA_FLOAT_UNALIGNED, offset + 4, y);
+        vertices.set(JAVA_FLOAT_UNALIGNED, offset + 8, z);
+        vertices.set(Tessellator.COLOR, offset + 12, color);
+        vertices.set(JAVA_FLOAT_UNALIGNED, offset + 16, u);
+        vertices.set(JAVA_FLOAT_UNALIGNED, offset + 20, v);
+        if (hasRegion) {
+            vertices.set(JAVA_FLOAT_UNALIGNED, offset + 24, regionU);
+            vertices.set(JAVA_FLOAT_UNALIGNED, offset + 28, regionV);
+            vertices.set(JAVA_FLOAT_UNALIGNED, offset + 32, regionWidth);
+            vertices.set(JAVA_FLOAT_UNALIGNED, offset + 36, regionHeight);
+        }
+    }
+
+    @Override
+    public void emit() {
+        vertices = grow(vertices, offset, offset + stride);
+        put(offset, x, y, z, u, v);
+        offset += stride;
+        vertexCount++;
+    }
+
+    @Override
+    public void quad(float x0, float y0, float x1, float y1, float z, float u0, float v0, float u1, float v1) {
+        if (indexed) {
+            indices = grow(indices, (long) indexCount * Integer.BYTES, (long) (indexCount + 6) * Integer.BYTES);
+            final int base = vertexCount;
+            indices.setAtIndex(JAVA_INT, indexCount, base);
+            indices.setAtIndex(JAVA_INT, indexCount + 1, base + 1);
+            indices.setAtIndex(JAVA_INT, indexCount + 2, base + 2);
+            indices.setAtIndex(JAVA_INT, indexCount + 3, base + 2);
+            indices.setAtIndex(JAVA_INT, indexCount + 4, base + 3);
+            indices.setAtIndex(JAVA_INT, indexCount + 5, base);
+            indexCount += 6;
+        }
+        vertices = grow(vertices, offset, offset + 4L * stride);
+        put(offset, x0, y1, z, u0, v0);
+        put(offset + stride, x0, y0, z, u0, v1);
+        put(offset + 2L * stride, x1, y0, z, u1, v1);
+        put(offset + 3L * stride, x1, y1, z, u1, v0);
+        offset += 4L * stride;
+        vertexCount += 4;
+    }
+
+    public VertexFormat format() {
+        return format;
+    }
+
+    public MemorySegment vertexData() {
+        return vertices.asSlice(0, offset);
+    }
+
+    public MemorySegment indexData() {
+        return indices.asSlice(0, (long) indexCount * Integer.BYTES);
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public int indexCount() {
+        return indexCount;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+/**
+ * The layers of a {@link RenderQueue}, drawn in declaration order.
+ * <p>
+ * Within a layer, the draws are grouped by program and texture to minimise the state changes,
+ * unless the layer blends, in which case they are drawn back to front and in submission order at the same depth.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public enum RenderLayer {
+    OPAQUE(false),
+    CUTOUT(false),
+    TRANSLUCENT(true),
+    OVERLAY(false),
+    GUI(true);
+
+    private final boolean depthFirst;
+
+    RenderLayer(boolean depthFirst) {
+        this.depthFirst = depthFirst;
+    }
+
+    /**
+     * Returns {@code true} if the draws of this layer are sorted back to front instead of grouped by state.
+     *
+     * @return {@code true} if the order of the depths matters.
+     */
+    public boolean isDepthFirst() {
+        return depthFirst;
+    }
+}
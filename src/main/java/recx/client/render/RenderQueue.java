@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import recx.client.gl.GLProgram;
+
+import java.util.Arrays;
+
+/**
+ * A queue of draws, sorted by a 64-bit key on {@link #flush()} so that the state changes are grouped.
+ * <p>
+ * The key packs, from the highest bits, the {@link RenderLayer} (3 bits), the program id (10 bits),
+ * the texture id (10 bits) and the depth (24 bits). Depth-first layers pack only the inverted depth,
+ * so their draws at the same depth keep the submission order instead of being grouped by state.
+ * The lowest 16 bits are the submission order, which keeps equal keys stable and indexes the draw.
+ * <p>
+ * The program is set and the texture bound only when they change; a draw which changes the matrices
+ * has them uploaded before the next draw. The queue is flushed once per pass, since the passes use
+ * different projections.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class RenderQueue {
+    private static final int LAYER_SHIFT = 60;
+    private static final int ID_BITS = 10;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    private static final int DEPTH_BITS = 24;
+    /**
+     * The farthest depth; the depths are clamped from 0 to this.
+     */
+    public static final int MAX_DEPTH = (1 << DEPTH_BITS) - 1;
+    private static final int SEQUENCE_BITS = 16;
+    private static final int MAX_DRAWS = 1 << SEQUENCE_BITS;
+    private long[] keys = new long[64];
+    private GLProgram[] programs = new GLProgram[64];
+    private int[] textures = new int[64];
+    private Runnable[] draws = new Runnable[64];
+    private int count;
+    private int drawCount, programSwitches, textureSwitches, unsortedProgramSwitches, unsortedTextureSwitches;
+    private Stats stats = Stats.EMPTY;
+
+    /**
+     * The counters of a frame.
+     *
+     * @param drawCount               the count of the draws.
+     * @param programSwitches         the count of the program switches.
+     * @param textureSwitches         the count of the texture switches.
+     * @param unsortedProgramSwitches the count of the program switches in submission order.
+     * @param unsortedTextureSwitches the count of the texture switches in submission order.
+     * @author squid233
+     * @since 0.1.0
+     */
+    public record Stats(int drawCount,
+                        int programSwitches,
+                        int textureSwitches,
+                        int unsortedProgramSwitches,
+                        int unsortedTextureSwitches) {
+        public static final Stats EMPTY = new Stats(0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Computes the sort key of a draw.
+     *
+     * @param layer    the layer.
+     * @param program  the id of the program.
+     * @param texture  the id of the texture.
+     * @param depth    the distance from the viewer, from 0 to {@link #MAX_DEPTH}.
+     * @param sequence the submission order.
+     * @return the key.
+     */
+    public static long sortKey(RenderLayer layer, int program, int texture, int depth, int sequence) {
+        final long clamped = Math.min(Math.max(depth, 0), MAX_DEPTH);
+        final long key;
+        if (layer.isDepthFirst()) {
+            // back to front, then in submission order
+            key = MAX_DEPTH - clamped;
+        } else {
+            // front to back within a state
+            key = ((program & ID_MASK) << ID_BITS | texture & ID_MASK) << DEPTH_BITS | clamped;
+        }
+        return (long) layer.ordinal() << LAYER_SHIFT | key << SEQUENCE_BITS | sequence;
+    }
+
+    /**
+     * Submits a draw.
+     *
+     * @param layer   the layer.
+     * @param program the program to draw with.
+     * @param texture the 2D texture to bind, or 0.
+     * @param depth   the distance from the viewer, from 0 to {@link #MAX_DEPTH}.
+     * @param draw    the draw, called with the program set and the texture bound.
+     */
+    public void submit(RenderLayer layer, GLProgram program, int texture, int depth, Runnable draw) {
+        if (count >= MAX_DRAWS) {
+            throw new IllegalStateException("Too many draws in a pass: " + count);
+        }
+        if (count >= keys.length) {
+            final int newLength = keys.length * 2;
+            keys = Arrays.copyOf(keys, newLength);
+            programs = Arrays.copyOf(programs, newLength);
+            textures = Arrays.copyOf(textures, newLength);
+            draws = Arrays.copyOf(draws, newLength);
+        }
+        keys[count] = sortKey(layer, program.id(), texture, depth, count);
+        programs[count] = program;
+        textures[count] = texture;
+        draws[count] = draw;
+        count++;
+    }
+
+    /**
+     * Sorts and draws the submitted draws, then clears the queue.
+     */
+    public void flush() {
+        if (count == 0) return;
+
+        // the switches the submission order would cost
+        for (int i = 1; i < count; i++) {
+            if (programs[i] != programs[i - 1]) unsortedProgramSwitches++;
+            if (textures[i] != textures[i - 1]) unsortedTextureSwitches++;
+        }
+        unsortedProgramSwitches++;
+        unsortedTextureSwitches++;
+
+        Arrays.sort(keys, 0, count);
+        GLProgram program = null;
+        int texture = -1;
+        for (int i = 0; i < count; i++) {
+            final int index = (int) (keys[i] & (MAX_DRAWS - 1));
+            if (programs[index] != program) {
+                program = programs[index];
+                RenderSystem.setProgram(program);
+                programSwitches++;
+            } else {
+                // the previous draw may have changed the matrices
+                RenderSystem.uploadUniforms();
+            }
+            if (textures[index] != texture) {
+                texture = textures[index];
+                RenderSystem.bindTexture2D(texture);
+                textureSwitches++;
+            }
+            draws[index].run();
+        }
+        RenderSystem.bindTexture2D(0);
+        RenderSystem.setProgram(null);
+
+        drawCount += count;
+        Arrays.fill(programs, 0, count, null);
+        Arrays.fill(draws, 0, count, null);
+        count = 0;
+    }
+
+    /**
+     * Publishes the counters of the frame, and resets them.
+     */
+    public void endFrame() {
+        stats = new Stats(drawCount, programSwitches, textureSwitches, unsortedProgramSwitches, unsortedTextureSwitches);
+        drawCount = 0;
+        programSwitches = 0;
+        textureSwitches = 0;
+        unsortedProgramSwitches = 0;
+        unsortedTextureSwitches = 0;
+    }
+
+    /**
+     * Returns the counters of the last frame.
+     *
+     * @return the counters.
+     */
+    public Stats stats() {
+        return stats;
+    }
+}
@@ -19,6 +19,7 @@ package recx.client.render;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.joml.*;
+import recx.client.gl.FrameUniformBuffer;
 import recx.client.gl.GLProgram;
 import recx.client.gl.GLStateManager;
 import recx.client.gl.GLUniform;
@@ -27,10 +28,15 @@ import recx.util.Identifier;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
+ * The render state of the render thread.
+ * <p>
+ * The projection view matrix and the color modulator go to the shared {@link FrameUniformBuffer},
+ * which is uploaded once per change instead of once per program; the programs which declare them
+ * as plain uniforms still get them. The model matrix is a uniform of each program.
+ *
  * @author squid233
  * @since 0.1.0
  */
@@ -42,11 +48,16 @@ public final class RenderSystem {
     private static final Vector4f colorModulator = new Vector4f(1.0f);
     private static @NotNull GLProgram currentProgram = GLProgram.ZERO;
     private static final Map<Identifier, Texture2D> textures = new HashMap<>();
+    private static FrameUniformBuffer frameUniforms;
 
-    private static void updateUniform(String name, Consumer<GLUniform> action) {
-        if (currentProgram.id() != 0) {
-            currentProgram.getUniform(name).ifPresent(action);
-        }
+    private static void setUniform(int slot, Matrix4fc value) {
+        final GLUniform uniform = currentProgram.uniform(slot);
+        if (uniform != null) uniform.set(value);
+    }
+
+    private static void setUniform(int slot, Vector4fc value) {
+        final GLUniform uniform = currentProgram.uniform(slot);
+        if (uniform != null) uniform.set(value);
     }
 
     public static void setProjectionMatrix(Matrix4fc mat) {
@@ -67,12 +78,13 @@ public final class RenderSystem {
 
     public static void setModelMatrix(Matrix4fc mat) {
         modelMatrix.set(mat);
-        updateUniform(GLProgram.MODEL_MATRIX, u -> u.set(modelMatrix));
+        setUniform(GLProgram.SLOT_MODEL_MATRIX, modelMatrix);
     }
 
     private static void updateCombined() {
         projectionMatrix.mul(viewMatrix, combinedMatrix);
-        updateUniform(GLProgram.PROJECTION_VIEW_MATRIX, u -> u.set(combinedMatrix));
+        frameUniforms().setProjectionViewMatrix(combinedMatrix);
+        setUniform(GLProgram.SLOT_PROJECTION_VIEW_MATRIX, combinedMatrix);
     }
 
     public static Matrix4fStack projectionMatrix() {
@@ -93,7 +105,8 @@ public final class RenderSystem {
 
     public static void setColorModulator(float r, float g, float b, float a) {
         colorModulator.set(r, g, b, a);
-        updateUniform(GLProgram.COLOR_MODULATOR, u -> u.set(colorModulator));
+        frameUniforms().setColorModulator(colorModulator);
+        setUniform(GLProgram.SLOT_COLOR_MODULATOR, colorModulator);
     }
 
     public static Vector4fc colorModulator() {
@@ -104,10 +117,39 @@ public final class RenderSystem {
         currentProgram = program != null ? program : GLProgram.ZERO;
         currentProgram.use();
         if (currentProgram.id() != 0) {
-            updateUniform(GLProgram.PROJECTION_VIEW_MATRIX, u -> u.set(combinedMatrix));
-            updateUniform(GLProgram.MODEL_MATRIX, u -> u.set(modelMatrix));
-            updateUniform(GLProgram.COLOR_MODULATOR, u -> u.set(colorModulator));
-            currentProgram.uploadUniforms();
+            setUniform(GLProgram.SLOT_PROJECTION_VIEW_MATRIX, combinedMatrix);
+            setUniform(GLProgram.SLOT_MODEL_MATRIX, modelMatrix);
+            setUniform(GLProgram.SLOT_COLOR_MODULATOR, colorModulator);
+            uploadUniforms();
+        }
+    }
+
+    /**
+     * Uploads the changed shared data and uniforms of the current program, for the next draws.
+     */
+    public static void uploadUniforms() {
+        frameUniforms().flush();
+        currentProgram.uploadUniforms();
+    }
+
+    /**
+     * Gets the shared uniform buffer, creating it on first use. The GL context must be current.
+     *
+     * @return the buffer.
+     */
+    public static FrameUniformBuffer frameUniforms() {
+        if (frameUniforms == null) {
+            frameUniforms = new FrameUniformBuffer();
+            frameUniforms.setProjectionViewMatrix(combinedMatrix);
+            frameUniforms.setColorModulator(colorModulator);
+        }
+        return frameUniforms;
+    }
+
+    public static void deleteFrameUniforms() {
+        if (frameUniforms != null) {
+            frameUniforms.close();
+            frameUniforms = null;
         }
     }
 
@@ -141,6 +183,16 @@ public final class RenderSystem {
         bindTexture2D(textures.computeIfAbsent(id, mappingFunction));
     }
 
+    /**
+     * Gets the texture of the given id, loading it if absent like {@link #bindTexture2D(Identifier)}.
+     *
+     * @param id the id of the texture.
+     * @return the texture.
+     */
+    public static Texture2D texture2D(Identifier id) {
+        return textures.computeIfAbsent(id, Texture2D::new);
+    }
+
     public static void deleteTextures() {
         textures.values().forEach(Texture2D::close);
         textures.clear();
@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import org.overrun.glib.gl.GL;
+import recx.client.gl.GLStateManager;
+import recx.client.gl.QuadIndexBuffer;
+import recx.world.chunk.Chunk;
+
+/**
+ * The GPU mesh of a section, built once and drawn every frame until the section changes.
+ * <p>
+ * The mesh is made of quads only, and draws with the shared {@link QuadIndexBuffer}.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class SectionMesh implements AutoCloseable {
+    private int vao, vbo;
+    private int quadCount;
+    private int blockCount;
+    private Chunk chunk;
+    private long version = -1;
+
+    /**
+     * Returns {@code true} if the mesh was not built from the given version of the section.
+     *
+     * @param chunk   the chunk of the section.
+     * @param version the version of the section.
+     * @return {@code true} if the mesh must be rebuilt.
+     */
+    public boolean isStale(Chunk chunk, long version) {
+        return this.chunk != chunk || this.version != version;
+    }
+
+    /**
+     * Forces the mesh to be rebuilt, e.g. when a neighbour changed.
+     */
+    public void invalidate() {
+        version = -1;
+    }
+
+    /**
+     * Uploads the built mesh.
+     *
+     * @param builder the builder.
+     * @param chunk   the chunk of the section.
+     * @param version the version of the section the mesh was built from.
+     * @param blocks  the count of the visible blocks in the mesh.
+     */
+    public void upload(MeshBuilder builder, Chunk chunk, long version, int blocks) {
+        this.chunk = chunk;
+        this.version = version;
+        quadCount = builder.vertexCount() / 4;
+        blockCount = blocks;
+        if (quadCount == 0) return;
+
+        final boolean created = vao <= 0;
+        if (created) {
+            vao = GL.genVertexArray();
+            vbo = GL.genBuffer();
+        }
+        GLStateManager.bindVertexArray(vao);
+        GLStateManager.bindArrayBuffer(vbo);
+        GL.bufferData(GL.ARRAY_BUFFER, builder.vertexData(), GL.STATIC_DRAW);
+        if (created) {
+            builder.format().specificPointers();
+            QuadIndexBuffer.bind(quadCount);
+        }
+        GLStateManager.bindArrayBuffer(0);
+        GLStateManager.bindVertexArray(0);
+    }
+
+    public void draw() {
+        if (quadCount == 0) return;
+        GLStateManager.bindVertexArray(vao);
+        QuadIndexBuffer.draw(quadCount);
+    }
+
+    public boolean isEmpty() {
+        return quadCount == 0;
+    }
+
+    public Chunk chunk() {
+        return chunk;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int quadCount() {
+        return quadCount;
+    }
+
+    /**
+     * Returns the count of the visible blocks the mesh was built from, which its quads merge.
+     *
+     * @return the count of the blocks.
+     */
+    public int blockCount() {
+        return blockCount;
+    }
+
+    @Override
+    public void close() {
+        if (vao > 0) {
+            GLStateManager.deleteVertexArray(vao);
+            GLStateManager.deleteBuffer(vbo);
+            vao = 0;
+            vbo = 0;
+        }
+        quadCount = 0;
+        blockCount = 0;
+    }
+}
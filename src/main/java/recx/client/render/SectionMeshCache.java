@@ -0,0 +1,250 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import org.joml.Matrix4f;
+import recx.world.ChangeJournal;
+import recx.world.World;
+import recx.world.chunk.Chunk;
+import recx.world.chunk.ChunkSection;
+
+/**
+ * Caches the meshes of the sections, and rebuilds a mesh only when its section or a neighbouring edge changed.
+ * The meshes are built by a {@link SectionMeshScheduler}.
+ * <p>
+ * The cache drains the block changes from its own cursor of the {@link ChangeJournal} of the world,
+ * so the cost of a frame follows the count of the changes rather than the size of the world.
+ * Meshes are built in local coordinates and drawn with a per-section model matrix.
+ * Meshes far from the visible area are evicted.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class SectionMeshCache implements AutoCloseable {
+    /**
+     * The count of sections kept around the visible area before the meshes are evicted.
+     */
+    private static final int EVICT_DISTANCE = 2;
+    /**
+     * The max count of the meshes uploaded per frame, so that mass edits are spread over frames.
+     */
+    private static final int UPLOAD_BUDGET = 8;
+    private final World world;
+    private final ChangeJournal.Cursor changes;
+    private final ChangeJournal.Visitor changeVisitor = this::onChange;
+    private final SectionMeshMap meshes = new SectionMeshMap();
+    private final SectionMeshScheduler scheduler;
+    private final Matrix4f modelMatrix = new Matrix4f();
+    private final Matrix4f sectionMatrix = new Matrix4f();
+    private int drawCalls;
+    private int uploads;
+    private int renderedQuads;
+    private int renderedBlocks;
+    // the visible area of the last eviction, in sections
+    private int visibleMinChunkX, visibleMinSectionY, visibleMaxChunkX = -1, visibleMaxSectionY = -1;
+
+    /**
+     * Creates the cache.
+     *
+     * @param world     the world.
+     * @param changes   the cursor of the change journal of the world, owned by this cache.
+     * @param scheduler the scheduler of the mesh builds.
+     */
+    public SectionMeshCache(World world, ChangeJournal.Cursor changes, SectionMeshScheduler scheduler) {
+        this.world = world;
+        this.changes = changes;
+        this.scheduler = scheduler;
+    }
+
+    private static long key(int chunkX, int sectionY) {
+        return (long) chunkX << 32 | (sectionY & 0xffffffffL);
+    }
+
+    private void invalidate(int chunkX, int sectionY) {
+        final SectionMesh mesh = meshes.get(key(chunkX, sectionY));
+        if (mesh != null) mesh.invalidate();
+    }
+
+    /**
+     * Invalidates the neighbouring meshes of a change on an edge of its section.
+     * The mesh of the changed section itself is detected by its version.
+     */
+    private void onChange(int x, int y, int z, int oldRawId, int newRawId) {
+        final int cx = Chunk.toChunkCoord(x);
+        final int sy = y >> ChunkSection.SHIFT;
+        final int localX = x & ChunkSection.MASK;
+        final int localY = y & ChunkSection.MASK;
+        if (localX == 0) invalidate(cx - 1, sy);
+        else if (localX == ChunkSection.MASK) invalidate(cx + 1, sy);
+        if (localY == 0) invalidate(cx, sy - 1);
+        else if (localY == ChunkSection.MASK) invalidate(cx, sy + 1);
+    }
+
+    /**
+     * Drains the changes since the last frame. If the cursor fell behind the journal, every mesh is rebuilt.
+     */
+    private void consumeChanges() {
+        if (changes.drain(changeVisitor) < 0) {
+            meshes.forEach(SectionMesh::invalidate);
+        }
+    }
+
+    /**
+     * Uploads the built meshes, at most {@value #UPLOAD_BUDGET} per frame. Results superseded by a newer upload,
+     * of evicted meshes or of unloaded chunks are dropped.
+     */
+    private void uploadBuilt() {
+        SectionMeshScheduler.Result result;
+        while (uploads < UPLOAD_BUDGET && (result = scheduler.poll()) != null) {
+            final SectionMesh mesh = meshes.get(result.key());
+            if (mesh != null &&
+                world.getChunk((int) (result.key() >> 32)) == result.chunk() &&
+                (mesh.chunk() != result.chunk() || mesh.version() < result.version())) {
+                mesh.upload(result.builder(), result.chunk(), result.version(), result.blocks());
+                uploads++;
+            }
+            scheduler.recycle(result.builder());
+        }
+    }
+
+    /**
+     * Schedules the rebuild of the stale meshes in the given area, uploads the built meshes and draws them.
+     * A stale mesh is drawn until its rebuild is uploaded. The program must be bound.
+     *
+     * @param minX the min visible block x.
+     * @param minY the min visible block y.
+     * @param maxX the max visible block x.
+     * @param maxY the max visible block y.
+     */
+    public void render(int minX, int minY, int maxX, int maxY) {
+        drawCalls = 0;
+        uploads = 0;
+        renderedQuads = 0;
+        renderedBlocks = 0;
+        consumeChanges();
+        uploadBuilt();
+
+        final int cx0 = Chunk.toChunkCoord(minX);
+        final int cx1 = Chunk.toChunkCoord(maxX);
+        final int sy0 = minY >> ChunkSection.SHIFT;
+        final int sy1 = maxY >> ChunkSection.SHIFT;
+        modelMatrix.set(RenderSystem.modelMatrix());
+        for (int cx = cx0; cx <= cx1; cx++) {
+            final Chunk chunk = world.getChunk(cx);
+            if (chunk == null) continue;
+            for (int sy = sy0; sy <= sy1; sy++) {
+                final long key = key(cx, sy);
+                final ChunkSection section = chunk.getSection(sy);
+                SectionMesh mesh = meshes.get(key);
+                if (section == null) {
+                    if (mesh != null) {
+                        mesh.close();
+                        meshes.remove(key);
+                    }
+                    continue;
+                }
+                if (mesh == null) {
+                    mesh = new SectionMesh();
+                    meshes.put(key, mesh);
+                }
+                final long version = chunk.sectionVersion(sy);
+                if (mesh.isStale(chunk, version) && !scheduler.isScheduled(key, version)) {
+                    scheduler.schedule(key, chunk, sy);
+                }
+                if (mesh.isEmpty()) continue;
+                RenderSystem.setModelMatrix(sectionMatrix.set(modelMatrix)
+                    .translate(cx << ChunkSection.SHIFT, sy << ChunkSection.SHIFT, 0f));
+                RenderSystem.uploadUniforms();
+                mesh.draw();
+                drawCalls++;
+                renderedQuads += mesh.quadCount();
+                renderedBlocks += mesh.blockCount();
+            }
+        }
+        RenderSystem.setModelMatrix(modelMatrix);
+        if (cx0 != visibleMinChunkX || sy0 != visibleMinSectionY || cx1 != visibleMaxChunkX || sy1 != visibleMaxSectionY) {
+            visibleMinChunkX = cx0;
+            visibleMinSectionY = sy0;
+            visibleMaxChunkX = cx1;
+            visibleMaxSectionY = sy1;
+            evict(cx0 - EVICT_DISTANCE, sy0 - EVICT_DISTANCE, cx1 + EVICT_DISTANCE, sy1 + EVICT_DISTANCE);
+        }
+    }
+
+    /**
+     * Evicts the meshes out of the given area. Only called when the visible area moves, since the meshes
+     * are only created in the visible area.
+     */
+    private void evict(int minChunkX, int minSectionY, int maxChunkX, int maxSectionY) {
+        meshes.closeIf(key -> {
+            final int cx = (int) (key >> 32);
+            final int sy = (int) key;
+            return cx < minChunkX || cx > maxChunkX || sy < minSectionY || sy > maxSectionY;
+        });
+    }
+
+    /**
+     * Returns the count of the cached meshes.
+     *
+     * @return the count of the meshes.
+     */
+    public int size() {
+        return meshes.size();
+    }
+
+    public int drawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * Returns the count of the meshes uploaded in the last frame.
+     *
+     * @return the count of the uploads.
+     */
+    public int uploads() {
+        return uploads;
+    }
+
+    /**
+     * Returns the count of the sections being rebuilt.
+     *
+     * @return the count of the pending sections.
+     */
+    public int pendingCount() {
+        return scheduler.pendingCount();
+    }
+
+    public int renderedQuads() {
+        return renderedQuads;
+    }
+
+    /**
+     * Returns the count of the visible blocks in the meshes drawn in the last frame.
+     *
+     * @return the count of the blocks.
+     */
+    public int renderedBlocks() {
+        return renderedBlocks;
+    }
+
+    @Override
+    public void close() {
+        scheduler.close();
+        meshes.forEach(SectionMesh::close);
+        meshes.clear();
+    }
+}
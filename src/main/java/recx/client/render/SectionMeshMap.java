@@ -0,0 +1,223 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+package recx.client.render;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongPredicate;
+
+/**
+ * An open-addressing hash map from {@code long} keys to section meshes, with linear probing,
+ * like {@link recx.world.chunk.ChunkMap}.
+ * <p>
+ * The keys are never boxed. A {@code null} value marks an empty slot.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class SectionMeshMap implements Iterable<SectionMesh> {
+    private static final float LOAD_FACTOR = 0.75f;
+    private long[] keys;
+    private SectionMesh[] values;
+    private int mask;
+    private int size = 0;
+    private int threshold;
+    // the keys to remove in closeIf, reused
+    private long[] removed = new long[16];
+
+    public SectionMeshMap(int expectedSize) {
+        final int capacity = Math.max(4, Integer.highestOneBit(Math.max(1, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1);
+        allocate(capacity);
+    }
+
+    public SectionMeshMap() {
+        this(256);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new SectionMesh[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(long key) {
+        // murmur3 finalizer
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    public SectionMesh get(long key) {
+        int i = hash(key) & mask;
+        SectionMesh value;
+        while ((value = values[i]) != null) {
+            if (keys[i] == key) {
+                return value;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Associates the mesh with the key.
+     *
+     * @param key   the key.
+     * @param value the mesh. must not be {@code null}.
+     * @return the previous mesh, or {@code null} if there was no mapping.
+     */
+    public SectionMesh put(long key, SectionMesh value) {
+        int i = hash(key) & mask;
+        SectionMesh prev;
+        while ((prev = values[i]) != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return prev;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) {
+            rehash(values.length << 1);
+        }
+        return null;
+    }
+
+    public SectionMesh remove(long key) {
+        int i = hash(key) & mask;
+        SectionMesh value;
+        while ((value = values[i]) != null) {
+            if (keys[i] == key) {
+                shiftKeys(i);
+                size--;
+                return value;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Removes and closes the meshes whose key is accepted by the filter.
+     *
+     * @param filter the filter of the keys.
+     * @return the count of the removed meshes.
+     */
+    public int closeIf(LongPredicate filter) {
+        // collect first, since a removal shifts the following slots
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && filter.test(keys[i])) {
+                if (count == removed.length) {
+                    removed = Arrays.copyOf(removed, count << 1);
+                }
+                removed[count++] = keys[i];
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            remove(removed[i]).close();
+        }
+        return count;
+    }
+
+    private void shiftKeys(int pos) {
+        // backward shift deletion, so that no tombstone is needed
+        int last;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            SectionMesh value;
+            while (true) {
+                if ((value = values[pos]) == null) {
+                    values[last] = null;
+                    return;
+                }
+                final int slot = hash(keys[pos]) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) break;
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = keys[pos];
+            values[last] = value;
+        }
+    }
+
+    private void rehash(int capacity) {
+        final long[] oldKeys = keys;
+        final SectionMesh[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            final SectionMesh value = oldValues[i];
+            if (value != null) {
+                int j = hash(oldKeys[i]) & mask;
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = value;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @NotNull
+    @Override
+    public Iterator<SectionMesh> iterator() {
+        return new Iterator<>() {
+            private final SectionMesh[] array = values;
+            private int index = advance(0);
+
+            private int advance(int from) {
+                int i = from;
+                while (i < array.length && array[i] == null) i++;
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return index < array.length;
+            }
+
+            @Override
+            public SectionMesh next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                final SectionMesh value = array[index];
+                index = advance(index + 1);
+                return value;
+            }
+        };
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import recx.client.gl.GLDrawMode;
+import recx.client.gl.VertexFormat;
+import recx.world.chunk.Chunk;
+import recx.world.chunk.ChunkSection;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the meshes of the sections on worker threads.
+ * <p>
+ * A section is scheduled with a snapshot from {@link Chunk#snapshotSection(int)}, so the workers never see
+ * a partially applied change. The built meshes are put on a lock-free queue, which the render thread drains
+ * with a budget per frame; the builders are then recycled. Except for the workers, all methods must be called
+ * on the render thread.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class SectionMeshScheduler implements AutoCloseable {
+    private static final int INITIAL_VERTEX_COUNT = ChunkSection.SIZE * ChunkSection.SIZE * 4;
+    private final ExecutorService executor;
+    private final Queue<Result> results = new ConcurrentLinkedQueue<>();
+    private final Queue<MeshBuilder> builders = new ConcurrentLinkedQueue<>();
+    /**
+     * The newest version scheduled per section, removed when the result is drained.
+     */
+    private final SectionVersionMap scheduled = new SectionVersionMap();
+
+    /**
+     * A built mesh.
+     *
+     * @param key     the key of the section.
+     * @param chunk   the chunk of the section.
+     * @param version the version of the section the mesh was built from.
+     * @param blocks  the count of the visible blocks in the mesh.
+     * @param builder the builder holding the mesh.
+     * @author squid233
+     * @since 0.1.0
+     */
+    public record Result(long key, Chunk chunk, long version, int blocks, MeshBuilder builder) {
+    }
+
+    /**
+     * Creates the scheduler.
+     *
+     * @param threads the count of the worker threads.
+     */
+    public SectionMeshScheduler(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("The count of threads must be positive: " + threads);
+        }
+        final AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            final Thread thread = new Thread(r, "Recx Mesh Builder #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns {@code true} if the given version of the section is scheduled and not drained yet.
+     *
+     * @param key     the key of the section.
+     * @param version the version.
+     * @return {@code true} if the version is scheduled.
+     */
+    public boolean isScheduled(long key, long version) {
+        return scheduled.get(key) == version;
+    }
+
+    /**
+     * Schedules the rebuild of a section.
+     *
+     * @param key      the key of the section.
+     * @param chunk    the chunk of the section.
+     * @param sectionY the section y.
+     */
+    public void schedule(long key, Chunk chunk, int sectionY) {
+        final long version = chunk.sectionVersion(sectionY);
+        final ChunkSection section = chunk.snapshotSection(sectionY);
+        scheduled.put(key, version);
+        try {
+            executor.execute(() -> {
+                MeshBuilder builder = builders.poll();
+                if (builder == null) builder = new MeshBuilder(VertexFormat.PACKED_POSITION_TEX_REGION, GLDrawMode.QUADS, INITIAL_VERTEX_COUNT);
+                int blocks = 0;
+                if (section != null) {
+                    blocks = GreedyMesher.build(section, builder);
+                } else {
+                    builder.begin();
+                }
+                results.add(new Result(key, chunk, version, blocks, builder));
+            });
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(key);
+            throw e;
+        }
+    }
+
+    /**
+     * Polls a built mesh. The builder of the result must be passed to {@link #recycle(MeshBuilder)} after use.
+     *
+     * @return the result, or {@code null} if no mesh is built.
+     */
+    public Result poll() {
+        final Result result = results.poll();
+        if (result != null) {
+            if (scheduled.get(result.key()) == result.version()) {
+                scheduled.remove(result.key());
+            }
+        }
+        return result;
+    }
+
+    public void recycle(MeshBuilder builder) {
+        builders.add(builder);
+    }
+
+    /**
+     * Returns the count of the sections scheduled and not drained yet.
+     *
+     * @return the count of the pending sections.
+     */
+    public int pendingCount() {
+        return scheduled.size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                // todo: log
+                System.err.println("Timed out waiting for the mesh builders");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        results.clear();
+        builders.clear();
+        scheduled.clear();
+    }
+}
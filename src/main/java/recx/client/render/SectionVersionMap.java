@@ -0,0 +1,183 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+package recx.client.render;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from {@code long} keys to the versions of the sections, with linear probing,
+ * like {@link recx.world.chunk.ChunkMap}.
+ * <p>
+ * The keys and the versions are never boxed. The versions are never negative, and {@value #NO_VERSION}
+ * marks an empty slot.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class SectionVersionMap {
+    public static final long NO_VERSION = -1L;
+    private static final float LOAD_FACTOR = 0.75f;
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size = 0;
+    private int threshold;
+
+    public SectionVersionMap(int expectedSize) {
+        final int capacity = Math.max(4, Integer.highestOneBit(Math.max(1, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1);
+        allocate(capacity);
+    }
+
+    public SectionVersionMap() {
+        this(64);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(values, NO_VERSION);
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(long key) {
+        // murmur3 finalizer
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Gets the version of the key.
+     *
+     * @param key the key.
+     * @return the version, or {@value #NO_VERSION} if there is no mapping.
+     */
+    public long get(long key) {
+        int i = hash(key) & mask;
+        long value;
+        while ((value = values[i]) != NO_VERSION) {
+            if (keys[i] == key) {
+                return value;
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_VERSION;
+    }
+
+    /**
+     * Associates the version with the key.
+     *
+     * @param key   the key.
+     * @param value the version. must not be negative.
+     * @return the previous version, or {@value #NO_VERSION} if there was no mapping.
+     */
+    public long put(long key, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative version " + value);
+        }
+        int i = hash(key) & mask;
+        long prev;
+        while ((prev = values[i]) != NO_VERSION) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return prev;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) {
+            rehash(values.length << 1);
+        }
+        return NO_VERSION;
+    }
+
+    /**
+     * Removes the mapping of the key.
+     *
+     * @param key the key.
+     * @return the removed version, or {@value #NO_VERSION} if there was no mapping.
+     */
+    public long remove(long key) {
+        int i = hash(key) & mask;
+        long value;
+        while ((value = values[i]) != NO_VERSION) {
+            if (keys[i] == key) {
+                shiftKeys(i);
+                size--;
+                return value;
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_VERSION;
+    }
+
+    private void shiftKeys(int pos) {
+        // backward shift deletion, so that no tombstone is needed
+        int last;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            long value;
+            while (true) {
+                if ((value = values[pos]) == NO_VERSION) {
+                    values[last] = NO_VERSION;
+                    return;
+                }
+                final int slot = hash(keys[pos]) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) break;
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = keys[pos];
+            values[last] = value;
+        }
+    }
+
+    private void rehash(int capacity) {
+        final long[] oldKeys = keys;
+        final long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            final long value = oldValues[i];
+            if (value != NO_VERSION) {
+                int j = hash(oldKeys[i]) & mask;
+                while (values[j] != NO_VERSION) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = value;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, NO_VERSION);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import org.overrun.glib.gl.GL;
+import recx.client.gl.GLStateManager;
+import recx.client.gl.QuadIndexBuffer;
+import recx.client.gl.VertexFormat;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentScope;
+
+import static java.lang.foreign.ValueLayout.JAVA_FLOAT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG_UNALIGNED;
+
+/**
+ * An instanced batch of textured unit quads, such as blocks and sprites.
+ * <p>
+ * Each quad is an instance in {@link VertexFormat#SPRITE_INSTANCE}: the position of its bottom-left corner
+ * in whole units relative to the model matrix, the sprite index and the tint.
+ * The corners come from the indices of the shared {@link QuadIndexBuffer}, and the sprite index looks up
+ * the texture region in the sprite table set with {@link #setSprites(float[])}, bound to {@link #SPRITE_UNIT}.
+ * The batch is drawn with a single {@code glDrawElementsInstanced} on {@link #end()}.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class SpriteBatch implements AutoCloseable {
+    /**
+     * The texture unit of the sprite table.
+     */
+    public static final int SPRITE_UNIT = 1;
+    private static final int STRIDE = VertexFormat.SPRITE_INSTANCE.stride();
+    private static final int INITIAL_INSTANCE_COUNT = 256;
+    private MemorySegment instances = MemorySegment.allocateNative((long) INITIAL_INSTANCE_COUNT * STRIDE, SegmentScope.auto());
+    private int instanceCount;
+    private int vao, vbo;
+    private long vboSize;
+    private int spriteBuffer, spriteTexture;
+
+    /**
+     * Uploads the sprite table. The GL context must be current.
+     *
+     * @param regions the texture regions indexed by {@code sprite * 4}: u0, v0, u1, v1.
+     */
+    public void setSprites(float[] regions) {
+        if (spriteBuffer == 0) spriteBuffer = GL.genBuffer();
+        if (spriteTexture == 0) spriteTexture = GL.genTexture();
+        try (Arena arena = Arena.openConfined()) {
+            GLStateManager.bindTextureBuffer(spriteBuffer);
+            GL.bufferData(GL.TEXTURE_BUFFER, arena.allocateArray(JAVA_FLOAT, regions), GL.STATIC_DRAW);
+            GLStateManager.bindTextureBuffer(0);
+        }
+        GLStateManager.bindBufferTexture(SPRITE_UNIT, spriteTexture);
+        GL.texBuffer(GL.TEXTURE_BUFFER, GL.RGBA32F, spriteBuffer);
+    }
+
+    public void begin() {
+        instanceCount = 0;
+    }
+
+    /**
+     * Adds a quad.
+     *
+     * @param x      the x of the bottom-left corner.
+     * @param y      the y of the bottom-left corner.
+     * @param z      the z.
+     * @param sprite the sprite index.
+     * @param rgba   the tint in RGBA.
+     */
+    public void sprite(int x, int y, int z, int sprite, int rgba) {
+        final long offset = (long) instanceCount * STRIDE;
+        if (offset + STRIDE > instances.byteSize()) {
+            final MemorySegment newInstances = MemorySegment.allocateNative(instances.byteSize() * 2, SegmentScope.auto());
+            MemorySegment.copy(instances, 0, newInstances, 0, offset);
+            instances = newInstances;
+        }
+        // the four shorts in one write, in the little-endian order of the GL platforms
+        instances.set(JAVA_LONG_UNALIGNED, offset,
+            x & 0xffffL | (y & 0xffffL) << 16 | (z & 0xffffL) << 32 | (long) sprite << 48);
+        instances.set(Tessellator.COLOR, offset + 8, rgba);
+        instanceCount++;
+    }
+
+    public void end() {
+        if (instanceCount <= 0) return;
+
+        final boolean noVao = vao <= 0;
+        if (noVao) {
+            vao = GL.genVertexArray();
+            vbo = GL.genBuffer();
+        }
+        GLStateManager.bindVertexArray(vao);
+        GLStateManager.bindArrayBuffer(vbo);
+        if (noVao) {
+            VertexFormat.SPRITE_INSTANCE.specificPointers();
+            QuadIndexBuffer.bind(1);
+        }
+        final long byteSize = (long) instanceCount * STRIDE;
+        // orphan the storage which may still be read by the previous draw
+        vboSize = Math.max(vboSize, instances.byteSize());
+        GL.bufferData(GL.ARRAY_BUFFER, vboSize, GL.STREAM_DRAW);
+        GL.bufferSubData(GL.ARRAY_BUFFER, 0, byteSize, instances);
+        GLStateManager.bindArrayBuffer(0);
+
+        GLStateManager.bindBufferTexture(SPRITE_UNIT, spriteTexture);
+        QuadIndexBuffer.drawInstanced(instanceCount);
+
+        GLStateManager.bindVertexArray(0);
+    }
+
+    public int instanceCount() {
+        return instanceCount;
+    }
+
+    @Override
+    public void close() {
+        GLStateManager.deleteVertexArray(vao);
+        GLStateManager.deleteBuffer(vbo);
+        GLStateManager.deleteTexture(spriteTexture);
+        GLStateManager.deleteBuffer(spriteBuffer);
+    }
+}
@@ -19,33 +19,73 @@ package recx.client.render;
 import org.overrun.glib.gl.GL;
 import recx.client.gl.GLDrawMode;
 import recx.client.gl.GLStateManager;
+import recx.client.gl.QuadIndexBuffer;
+import recx.client.gl.StreamBuffer;
 import recx.client.gl.VertexFormat;
 
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentScope;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 
 import static java.lang.foreign.ValueLayout.*;
 
 /**
+ * The immediate batch of the render thread.
+ * <p>
+ * In {@link GLDrawMode#QUADS} the indices are implied by the shared {@link QuadIndexBuffer},
+ * and {@link #indices(int...)} is ignored; the other modes upload their own indices.
+ * <p>
+ * The vertices are written into a {@link StreamBuffer}, straight into the mapped memory where supported.
+ * The batches of a frame share the segment of the frame, and {@link #endFrame()} moves to the next segment;
+ * the first {@link #begin()} of a frame waits for the GPU to release that segment.
+ * A batch is submitted with a single draw call on {@link #end()}, however large it is:
+ * when the vertices outgrow the rest of the segment, they continue in chained native chunks,
+ * and the stream buffer is recreated with segments large enough for the frame on submit.
+ * The initial segment holds {@code recx.render.batchVertices} vertices, 16384 by default;
+ * {@link #peakVertexCount()} tells the size the batches actually reach.
+ *
  * @author squid233
  * @since 0.1.0
  */
 public final class Tessellator implements Batch, AutoCloseable {
-    private static final long VERTEX_COUNT = 15000L;
-    private static final long INDEX_COUNT = 20000L;
-    private static final long BUFFER_SIZE = VERTEX_COUNT * VertexFormat.POSITION_COLOR_TEX.stride();
-    private static final long INDEX_BUFFER_SIZE = INDEX_COUNT * Integer.BYTES;
+    private static final int STRIDE = VertexFormat.POSITION_COLOR_TEX.stride();
+    private static final long INITIAL_VERTEX_COUNT = Long.getLong("recx.render.batchVertices", 16384L);
+    private static final long INITIAL_INDEX_COUNT = INITIAL_VERTEX_COUNT * 6 / 4;
+    private static final long CHUNK_SIZE = 4096L * STRIDE;
+    /**
+     * The layout of a packed RGBA color, stored as the bytes r, g, b, a.
+     */
+    static final ValueLayout.OfInt COLOR = JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
     private static Tessellator instance;
     private final Arena arena = Arena.openConfined();
-    private final MemorySegment buffer = arena.allocate(BUFFER_SIZE);
-    private final MemorySegment indexBuffer = arena.allocate(INDEX_BUFFER_SIZE);
+    /**
+     * The overflow chunks of the current batch, and the free ones.
+     */
+    private final List<MemorySegment> chunks = new ArrayList<>();
+    private final Deque<MemorySegment> spareChunks = new ArrayDeque<>();
+    /**
+     * The written part of each filled chunk of the current batch, starting with the stream segment.
+     */
+    private final List<MemorySegment> filled = new ArrayList<>();
+    private MemorySegment indexBuffer = MemorySegment.allocateNative(INITIAL_INDEX_COUNT * Integer.BYTES, SegmentScope.auto());
+    private StreamBuffer stream;
+    private MemorySegment buffer;
     private GLDrawMode drawMode = GLDrawMode.QUADS;
     private float x, y, z;
-    private byte r = -1, g = -1, b = -1, a = -1;
+    private int color = -1;
     private float u, v;
     private long offset;
     private int vertexCount, indexCount;
-    private int vao, vbo, ebo;
+    private int vao, vaoBuffer, ebo;
+    private long eboSize;
+    private int peakVertexCount, peakIndexCount;
+    private int growCount;
 
     private Tessellator() {
     }
@@ -60,6 +100,7 @@ public final class Tessellator implements Batch, AutoCloseable {
     public static void free() {
         if (instance != null) {
             instance.close();
+            instance = null;
         }
     }
 
@@ -67,10 +108,67 @@ public final class Tessellator implements Batch, AutoCloseable {
         offset = 0;
         vertexCount = 0;
         indexCount = 0;
+        spareChunks.addAll(chunks);
+        chunks.clear();
+        filled.clear();
+    }
+
+    /**
+     * Makes room for the given count of vertices and indices.
+     * The vertices are kept contiguous; if they don't fit in the current chunk, the batch continues in a new chunk.
+     *
+     * @param vertices the count of the vertices.
+     * @param indices  the count of the indices.
+     */
+    private void reserve(int vertices, int indices) {
+        if (offset + (long) vertices * STRIDE > buffer.byteSize()) {
+            filled.add(buffer.asSlice(0, offset));
+            final MemorySegment chunk = spareChunks.isEmpty() ? arena.allocate(CHUNK_SIZE) : spareChunks.pop();
+            chunks.add(chunk);
+            buffer = chunk;
+            offset = 0;
+        }
+        final long indexSize = (long) (indexCount + indices) * Integer.BYTES;
+        if (indexSize > indexBuffer.byteSize()) {
+            final MemorySegment newBuffer = MemorySegment.allocateNative(Math.max(indexSize, indexBuffer.byteSize() * 2), SegmentScope.auto());
+            MemorySegment.copy(indexBuffer, 0, newBuffer, 0, (long) indexCount * Integer.BYTES);
+            indexBuffer = newBuffer;
+        }
+    }
+
+    /**
+     * Recreates the stream buffer with segments large enough for the batches of the frame so far and the current batch,
+     * and moves the batch into it.
+     *
+     * @param byteSize the byte size of the batch.
+     */
+    private void growStream(long byteSize) {
+        filled.add(buffer.asSlice(0, offset));
+        final StreamBuffer old = stream;
+        final long required = old.used() + byteSize;
+        long segmentSize = old.segmentSize() * 2;
+        while (segmentSize < required) {
+            segmentSize *= 2;
+        }
+        stream = new StreamBuffer(segmentSize);
+        final MemorySegment dst = stream.acquire();
+        long pos = 0;
+        for (MemorySegment segment : filled) {
+            MemorySegment.copy(segment, 0, dst, pos, segment.byteSize());
+            pos += segment.byteSize();
+        }
+        // the previous draws still own the old storage; the driver deletes it once they finished
+        old.close();
+        buffer = dst;
+        offset = byteSize;
+        growCount++;
     }
 
     public void begin(GLDrawMode drawMode) {
         clear();
+        if (stream == null) stream = new StreamBuffer(INITIAL_VERTEX_COUNT * STRIDE);
+        // the first batch of a frame waits here for the segment, not the end of the previous draw
+        buffer = stream.acquire();
         this.drawMode = drawMode;
     }
 
@@ -88,35 +186,53 @@ public final class Tessellator implements Batch, AutoCloseable {
     public void flush() {
         if (vertexCount <= 0) return;
 
-        final boolean noVbo = vbo <= 0;
-        final boolean noEbo = ebo <= 0;
+        peakVertexCount = Math.max(peakVertexCount, vertexCount);
+        peakIndexCount = Math.max(peakIndexCount, indexCount);
+        final long byteSize = (long) vertexCount * STRIDE;
+        if (!chunks.isEmpty()) {
+            growStream(byteSize);
+        }
+
         if (vao <= 0) vao = GL.genVertexArray();
-        if (noVbo) vbo = GL.genBuffer();
-        if (noEbo) ebo = GL.genBuffer();
 
         GLStateManager.bindVertexArray(vao);
 
-        GLStateManager.bindArrayBuffer(vbo);
-        if (noVbo) {
-            GL.bufferData(GL.ARRAY_BUFFER, buffer, GL.STREAM_DRAW);
+        final long streamOffset = stream.commit(byteSize);
+        if (vaoBuffer != stream.id()) {
+            vaoBuffer = stream.id();
+            GLStateManager.bindArrayBuffer(vaoBuffer);
             VertexFormat.POSITION_COLOR_TEX.specificPointers();
-        } else {
-            GL.bufferSubData(GL.ARRAY_BUFFER, 0, offset, buffer);
+            GLStateManager.bindArrayBuffer(0);
         }
-        GLStateManager.bindArrayBuffer(0);
 
-        if (noEbo) {
-            GL.bindBuffer(GL.ELEMENT_ARRAY_BUFFER, ebo);
-            GL.bufferData(GL.ELEMENT_ARRAY_BUFFER, indexBuffer, GL.STREAM_DRAW);
+        final int baseVertex = (int) (streamOffset / STRIDE);
+        if (drawMode == GLDrawMode.QUADS) {
+            // the indices are implied
+            QuadIndexBuffer.bind(vertexCount / 4);
+            QuadIndexBuffer.draw(vertexCount / 4, baseVertex);
         } else {
-            GL.bufferSubData(GL.ELEMENT_ARRAY_BUFFER, 0, Integer.toUnsignedLong(indexCount) << 2, indexBuffer);
+            if (ebo <= 0) ebo = GL.genBuffer();
+            GLStateManager.bindElementArrayBuffer(ebo);
+            if (eboSize < indexBuffer.byteSize()) {
+                eboSize = indexBuffer.byteSize();
+                GL.bufferData(GL.ELEMENT_ARRAY_BUFFER, indexBuffer, GL.STREAM_DRAW);
+            } else {
+                GL.bufferSubData(GL.ELEMENT_ARRAY_BUFFER, 0, Integer.toUnsignedLong(indexCount) << 2, indexBuffer);
+            }
+            GL.drawElementsBaseVertex(drawMode.enumValue(), indexCount, GL.UNSIGNED_INT, MemorySegment.NULL, baseVertex);
         }
-
-        GL.drawElements(drawMode.enumValue(), indexCount, GL.UNSIGNED_INT, MemorySegment.NULL);
-
         GLStateManager.bindVertexArray(0);
 
         clear();
+        // a flush inside a batch continues after it, in the segment the frame already waited for
+        buffer = stream.acquire();
+    }
+
+    /**
+     * Ends the frame: the following batches go to the next segment of the stream buffer. Called once per frame.
+     */
+    public void endFrame() {
+        if (stream != null) stream.endFrame();
     }
 
     @Override
@@ -135,10 +251,7 @@ public final class Tessellator implements Batch, AutoCloseable {
 
     @Override
     public Tessellator color(byte r, byte g, byte b, byte a) {
-        this.r = r;
-        this.g = g;
-        this.b = b;
-        this.a = a;
+        this.color = (r & 0xff) << 24 | (g & 0xff) << 16 | (b & 0xff) << 8 | a & 0xff;
         return this;
     }
 
@@ -150,7 +263,7 @@ public final class Tessellator implements Batch, AutoCloseable {
 
     @Override
     public Tessellator color(int rgba) {
-        Batch.super.color(rgba);
+        this.color = rgba;
         return this;
     }
 
@@ -163,6 +276,8 @@ public final class Tessellator implements Batch, AutoCloseable {
 
     @Override
     public Tessellator indices(int... indices) {
+        if (drawMode == GLDrawMode.QUADS) return this;
+        reserve(0, indices.length);
         for (int index : indices) {
             indexBuffer.setAtIndex(JAVA_INT, indexCount, index + vertexCount);
             indexCount++;
@@ -170,31 +285,86 @@ public final class Tessellator implements Batch, AutoCloseable {
         return this;
     }
 
-    @Override
-    public void emit() {
-        // position
+    private void put(long offset, float x, float y, float z, float u, float v) {
         buffer.set(JAVA_FLOAT_UNALIGNED, offset, x);
         buffer.set(JAVA_FLOAT_UNALIGNED, offset + 4, y);
         buffer.set(JAVA_FLOAT_UNALIGNED, offset + 8, z);
-        // color
-        buffer.set(JAVA_BYTE, offset + 12, r);
-        buffer.set(JAVA_BYTE, offset + 13, g);
-        buffer.set(JAVA_BYTE, offset + 14, b);
-        buffer.set(JAVA_BYTE, offset + 15, a);
-        // texture
+        buffer.set(COLOR, offset + 12, color);
         buffer.set(JAVA_FLOAT_UNALIGNED, offset + 16, u);
         buffer.set(JAVA_FLOAT_UNALIGNED, offset + 20, v);
-        offset += 24;
+    }
+
+    @Override
+    public void emit() {
+        reserve(1, 0);
+        put(offset, x, y, z, u, v);
+        offset += STRIDE;
         vertexCount++;
+    }
 
-        final int count = drawMode.vertexCount();
-        if (vertexCount % count == 0 && vertexCount >= VERTEX_COUNT - count) {
-            flush();
+    @Override
+    public void quad(float x0, float y0, float x1, float y1, float z, float u0, float v0, float u1, float v1) {
+        final boolean indexed = drawMode != GLDrawMode.QUADS;
+        reserve(4, indexed ? 6 : 0);
+        if (indexed) {
+            final int base = vertexCount;
+            indexBuffer.setAtIndex(JAVA_INT, indexCount, base);
+            indexBuffer.setAtIndex(JAVA_INT, indexCount + 1, base + 1);
+            indexBuffer.setAtIndex(JAVA_INT, indexCount + 2, base + 2);
+            indexBuffer.setAtIndex(JAVA_INT, indexCount + 3, base + 2);
+            indexBuffer.setAtIndex(JAVA_INT, indexCount + 4, base + 3);
+            indexBuffer.setAtIndex(JAVA_INT, indexCount + 5, base);
+            indexCount += 6;
         }
+        put(offset, x0, y1, z, u0, v0);
+        put(offset + STRIDE, x0, y0, z, u0, v1);
+        put(offset + STRIDE * 2, x1, y0, z, u1, v1);
+        put(offset + STRIDE * 3, x1, y1, z, u1, v0);
+        offset += STRIDE * 4;
+        vertexCount += 4;
+    }
+
+    /**
+     * Gets the count of the vertices of the largest batch so far.
+     *
+     * @return the peak vertex count.
+     */
+    public int peakVertexCount() {
+        return peakVertexCount;
+    }
+
+    /**
+     * Gets the count of the indices of the largest indexed batch so far.
+     *
+     * @return the peak index count.
+     */
+    public int peakIndexCount() {
+        return peakIndexCount;
+    }
+
+    /**
+     * Gets the count of the vertices that fit in a stream segment.
+     *
+     * @return the vertex capacity.
+     */
+    public long vertexCapacity() {
+        return stream != null ? stream.segmentSize() / STRIDE : INITIAL_VERTEX_COUNT;
+    }
+
+    /**
+     * Gets how many times the stream buffer was recreated because a batch outgrew it.
+     *
+     * @return the count.
+     */
+    public int growCount() {
+        return growCount;
     }
 
     @Override
     public void close() {
+        GLStateManager.deleteVertexArray(vao);
+        GLStateManager.deleteBuffer(ebo);
+        if (stream != null) stream.close();
         arena.close();
     }
 }
@@ -22,6 +22,7 @@ import recx.client.RecxClient;
 import recx.client.gl.GLDrawMode;
 import recx.client.gl.GLStateManager;
 import recx.client.texture.TextureAtlas;
+import recx.world.ChangeJournal;
 import recx.world.HitResult;
 import recx.world.World;
 import recx.world.block.Block;
@@ -32,65 +33,82 @@ import recx.world.phys.AABBox;
  * @author squid233
  * @since 0.1.0
  */
-public final class WorldRenderer {
+public final class WorldRenderer implements AutoCloseable {
+    /**
+     * The count of blocks rendered around the visible area, for blocks partially on the screen.
+     */
+    private static final int CULL_MARGIN = 1;
     private final RecxClient client;
     private final World world;
     private final Vector3f unproject = new Vector3f();
     private final HitResult hitResult = new HitResult();
+    private final Vector3f cornerMin = new Vector3f();
+    private final Vector3f cornerMax = new Vector3f();
+    private final SectionMeshCache meshes;
+    private int visibleMinX, visibleMinY, visibleMaxX, visibleMaxY;
 
     public WorldRenderer(RecxClient client, World world) {
         this.client = client;
         this.world = world;
+        final ChangeJournal journal = world.journal();
+        if (journal == null) {
+            throw new IllegalStateException("The world has no change journal");
+        }
+        this.meshes = new SectionMeshCache(world, journal.cursor(),
+            new SectionMeshScheduler(Math.max(1, Runtime.getRuntime().availableProcessors() / 2)));
+    }
+
+    /**
+     * Computes the rectangle of the visible blocks from the inverse camera matrix and the viewport.
+     */
+    private void computeVisibleArea(Camera camera) {
+        final int[] viewport = GLStateManager.viewport();
+        camera.inverse().unprojectInv(viewport[0], viewport[1], 0f, viewport, cornerMin);
+        camera.inverse().unprojectInv(viewport[0] + viewport[2], viewport[1] + viewport[3], 0f, viewport, cornerMax);
+        visibleMinX = (int) Math.floor(Math.min(cornerMin.x(), cornerMax.x())) - CULL_MARGIN;
+        visibleMaxX = (int) Math.floor(Math.max(cornerMin.x(), cornerMax.x())) + CULL_MARGIN;
+        visibleMinY = Math.max(0, (int) Math.floor(Math.min(cornerMin.y(), cornerMax.y())) - CULL_MARGIN);
+        visibleMaxY = Math.min(world.height() - 1, (int) Math.floor(Math.max(cornerMin.y(), cornerMax.y())) + CULL_MARGIN);
     }
 
+    /**
+     * Submits the world to the render queue.
+     *
+     * @param partialTick the partial tick.
+     */
     public void render(double partialTick) {
+        computeVisibleArea(client.gameRenderer().camera());
+
+        final RenderQueue queue = client.gameRenderer().renderQueue();
         // render world
-        RenderSystem.bindTexture2D(TextureAtlas.BLOCK);
-        RenderSystem.setProgram(client.gameRenderer().positionColorTex());
-        final Tessellator t = Tessellator.getInstance();
-        t.begin();
-        for (int x = 0; x < world.width(); x++) {
-            for (int y = 0; y < world.height(); y++) {
-                for (int z = 0; z < world.depth(); z++) {
-                    final Block block = world.getBlock(x, y, z);
-                    if (!block.isAir()) {
-                        final boolean visible;
-                        if (z != 0) {
-                            visible = true;
-                        } else {
-                            final Block z1 = world.getBlock(x, y, 1);
-                            visible = z1.isAir() || z1.isTextureTranslucent();
-                        }
-                        if (visible) {
-                            BlockRenderer.render(block, t, partialTick, x, y, z);
-                        }
-                    }
-                }
-            }
-        }
-        t.end();
-        RenderSystem.bindTexture2D(0);
+        final int minX = visibleMinX, minY = visibleMinY, maxX = visibleMaxX, maxY = visibleMaxY;
+        queue.submit(RenderLayer.OPAQUE,
+            client.gameRenderer().renderTypeTerrain(),
+            RenderSystem.texture2D(TextureAtlas.BLOCK).id(),
+            0,
+            () -> meshes.render(minX, minY, maxX, maxY));
         // render outline
         if (!hitResult.miss) {
             final AABBox outline = hitResult.block.getOutlineShape();
             if (outline != Block.EMPTY) {
-                RenderSystem.setProgram(client.gameRenderer().positionColor());
                 final int x = hitResult.x;
                 final int y = hitResult.y;
                 final float x0 = (float) (x - outline.minX());
                 final float y0 = (float) (y - outline.minY());
                 final float x1 = (float) (x + outline.maxX());
                 final float y1 = (float) (y + outline.maxY());
-                t.begin(GLDrawMode.LINE_LOOP);
-                t.indices(0, 1, 2, 3).color(0x000000ff);
-                t.vertex(x0, y1).emit();
-                t.vertex(x0, y0).emit();
-                t.vertex(x1, y0).emit();
-                t.vertex(x1, y1).emit();
-                t.end();
+                queue.submit(RenderLayer.OVERLAY, client.gameRenderer().positionColor(), 0, 0, () -> {
+                    final Tessellator t = Tessellator.getInstance();
+                    t.begin(GLDrawMode.LINE_LOOP);
+                    t.indices(0, 1, 2, 3).color(0x000000ff);
+                    t.vertex(x0, y1).emit();
+                    t.vertex(x0, y0).emit();
+                    t.vertex(x1, y0).emit();
+                    t.vertex(x1, y1).emit();
+                    t.end();
+                });
             }
         }
-        RenderSystem.setProgram(null);
     }
 
     public void pick(Camera camera) {
@@ -111,7 +129,16 @@ public final class WorldRenderer {
         hitResult.block = miss ? Blocks.AIR : world.getBlock(x, y, z);
     }
 
+    public SectionMeshCache meshes() {
+        return meshes;
+    }
+
     public HitResult hitResult() {
         return hitResult;
     }
+
+    @Override
+    public void close() {
+        meshes.close();
+    }
 }
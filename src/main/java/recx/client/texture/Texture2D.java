@@ -18,6 +18,7 @@ package recx.client.texture;
 
 import org.overrun.glib.gl.GL;
 import org.overrun.glib.stb.STBImage;
+import recx.client.gl.GLStateManager;
 import recx.client.render.RenderSystem;
 import recx.util.Identifier;
 
@@ -94,6 +95,6 @@ public class Texture2D implements Texture {
 
     @Override
     public void close() {
-        GL.deleteTexture(textureId);
+        GLStateManager.deleteTexture(textureId);
     }
 }
@@ -0,0 +1,222 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.util.tag;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+
+import static recx.util.tag.TagTypes.*;
+
+/**
+ * A streaming reader of binary tags over a memory segment.
+ * <p>
+ * No tree is built. {@link #next()} moves to the next tag of the current compound,
+ * and the payload of that tag must then be either read or {@linkplain #skip() skipped}.
+ * After {@link #next()} returns {@link TagTypes#COMPOUND}, the following calls iterate the nested compound
+ * until {@link TagTypes#END}.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class TagReader {
+    private final MemorySegment segment;
+    private long offset;
+    private byte type = END;
+    private long nameOffset;
+    private int nameLength;
+    private byte listType = END;
+
+    public TagReader(MemorySegment segment) {
+        this.segment = segment;
+    }
+
+    /**
+     * Reads the header of the next tag.
+     *
+     * @return the type of the tag; {@link TagTypes#END} at the end of a compound or the segment.
+     */
+    public byte next() {
+        if (offset >= segment.byteSize()) {
+            type = END;
+            return END;
+        }
+        type = segment.get(ValueLayout.JAVA_BYTE, offset);
+        offset++;
+        if (type != END) {
+            nameLength = Short.toUnsignedInt(segment.get(SHORT_LAYOUT, offset));
+            nameOffset = offset + 2;
+            offset = nameOffset + nameLength;
+        }
+        return type;
+    }
+
+    public byte type() {
+        return type;
+    }
+
+    public String name() {
+        return readUTF(nameOffset, nameLength);
+    }
+
+    /**
+     * Compares the name of the current tag with the given ASCII name, without decoding the name.
+     *
+     * @param name the name.
+     * @return {@code true} if equals.
+     */
+    public boolean is(String name) {
+        if (name.length() != nameLength) return false;
+        for (int i = 0; i < nameLength; i++) {
+            if (segment.get(ValueLayout.JAVA_BYTE, nameOffset + i) != name.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private String readUTF(long off, int length) {
+        final byte[] bytes = new byte[length];
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, off, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void expect(byte expected) {
+        if (type != expected) {
+            throw new IllegalStateException("Expected tag type " + expected + " but got " + type);
+        }
+    }
+
+    public byte readByte() {
+        expect(BYTE);
+        return segment.get(ValueLayout.JAVA_BYTE, offset++);
+    }
+
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    public int readInt() {
+        expect(INT);
+        final int value = segment.get(INT_LAYOUT, offset);
+        offset += 4;
+        return value;
+    }
+
+    public long readLong() {
+        expect(LONG);
+        final long value = segment.get(LONG_LAYOUT, offset);
+        offset += 8;
+        return value;
+    }
+
+    public double readDouble() {
+        expect(DOUBLE);
+        final double value = segment.get(DOUBLE_LAYOUT, offset);
+        offset += 8;
+        return value;
+    }
+
+    public String readString() {
+        expect(STRING);
+        final int length = Short.toUnsignedInt(segment.get(SHORT_LAYOUT, offset));
+        final String s = readUTF(offset + 2, length);
+        offset += 2L + length;
+        return s;
+    }
+
+    public int[] readIntArray() {
+        expect(INT_ARRAY);
+        final int length = segment.get(INT_LAYOUT, offset);
+        final int[] values = new int[length];
+        MemorySegment.copy(segment, INT_LAYOUT, offset + 4, values, 0, length);
+        offset += 4L + 4L * length;
+        return values;
+    }
+
+    /**
+     * Reads a long array as one packed payload.
+     *
+     * @return the array.
+     */
+    public long[] readLongArray() {
+        expect(LONG_ARRAY);
+        final int length = segment.get(INT_LAYOUT, offset);
+        final long[] values = new long[length];
+        MemorySegment.copy(segment, LONG_LAYOUT, offset + 4, values, 0, length);
+        offset += 4L + 8L * length;
+        return values;
+    }
+
+    /**
+     * Reads the header of a list. The elements are then read with the reader; the elements of a compound list
+     * are iterated with {@link #next()} until {@link TagTypes#END}.
+     *
+     * @return the count of the elements.
+     */
+    public int beginList() {
+        expect(LIST);
+        listType = segment.get(ValueLayout.JAVA_BYTE, offset);
+        final int count = segment.get(INT_LAYOUT, offset + 1);
+        offset += 5;
+        if (listType != COMPOUND) {
+            // primitive elements are read as if they were tags of the element type
+            type = listType;
+        }
+        return count;
+    }
+
+    public byte listType() {
+        return listType;
+    }
+
+    /**
+     * Skips the payload of the current tag.
+     */
+    public void skip() {
+        skipPayload(type);
+    }
+
+    private void skipPayload(byte payloadType) {
+        switch (payloadType) {
+            case END -> {
+            }
+            case BYTE -> offset += 1;
+            case INT -> offset += 4;
+            case LONG, DOUBLE -> offset += 8;
+            case STRING -> offset += 2L + Short.toUnsignedInt(segment.get(SHORT_LAYOUT, offset));
+            case INT_ARRAY -> offset += 4L + 4L * segment.get(INT_LAYOUT, offset);
+            case LONG_ARRAY -> offset += 4L + 8L * segment.get(INT_LAYOUT, offset);
+            case COMPOUND -> {
+                while (next() != END) {
+                    skipPayload(type);
+                }
+            }
+            case LIST -> {
+                final byte elementType = segment.get(ValueLayout.JAVA_BYTE, offset);
+                final int count = segment.get(INT_LAYOUT, offset + 1);
+                offset += 5;
+                for (int i = 0; i < count; i++) {
+                    skipPayload(elementType);
+                }
+            }
+            default -> throw new IllegalStateException("Unknown tag type " + payloadType);
+        }
+    }
+
+    public long offset() {
+        return offset;
+    }
+}
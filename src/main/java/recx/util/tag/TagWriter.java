@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.util.tag;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static recx.util.tag.TagTypes.*;
+
+/**
+ * Writes binary tags into a growable heap buffer.
+ * <p>
+ * The elements of a compound list are written without headers, and each element must be ended with {@link #endCompound()}.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class TagWriter {
+    private byte[] buffer;
+    private MemorySegment segment;
+    private long offset = 0;
+
+    public TagWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+        this.segment = MemorySegment.ofArray(buffer);
+    }
+
+    public TagWriter() {
+        this(256);
+    }
+
+    private void ensure(long count) {
+        final long required = offset + count;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.toIntExact(Math.max(required, (long) buffer.length * 2)));
+            segment = MemorySegment.ofArray(buffer);
+        }
+    }
+
+    private void writeUTF(String s) {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xffff) {
+            throw new IllegalArgumentException("String too long: " + bytes.length + " bytes");
+        }
+        ensure(2L + bytes.length);
+        segment.set(SHORT_LAYOUT, offset, (short) bytes.length);
+        MemorySegment.copy(bytes, 0, segment, ValueLayout.JAVA_BYTE, offset + 2, bytes.length);
+        offset += 2L + bytes.length;
+    }
+
+    private void header(byte type, String name) {
+        ensure(1);
+        segment.set(ValueLayout.JAVA_BYTE, offset, type);
+        offset++;
+        writeUTF(name);
+    }
+
+    public TagWriter beginCompound(String name) {
+        header(COMPOUND, name);
+        return this;
+    }
+
+    public TagWriter endCompound() {
+        ensure(1);
+        segment.set(ValueLayout.JAVA_BYTE, offset, END);
+        offset++;
+        return this;
+    }
+
+    public TagWriter beginList(String name, byte elementType, int count) {
+        header(LIST, name);
+        ensure(5);
+        segment.set(ValueLayout.JAVA_BYTE, offset, elementType);
+        segment.set(INT_LAYOUT, offset + 1, count);
+        offset += 5;
+        return this;
+    }
+
+    public TagWriter putByte(String name, byte value) {
+        header(BYTE, name);
+        ensure(1);
+        segment.set(ValueLayout.JAVA_BYTE, offset, value);
+        offset++;
+        return this;
+    }
+
+    public TagWriter putBoolean(String name, boolean value) {
+        return putByte(name, value ? (byte) 1 : (byte) 0);
+    }
+
+    public TagWriter putInt(String name, int value) {
+        header(INT, name);
+        ensure(4);
+        segment.set(INT_LAYOUT, offset, value);
+        offset += 4;
+        return this;
+    }
+
+    public TagWriter putLong(String name, long value) {
+        header(LONG, name);
+        ensure(8);
+        segment.set(LONG_LAYOUT, offset, value);
+        offset += 8;
+        return this;
+    }
+
+    public TagWriter putDouble(String name, double value) {
+        header(DOUBLE, name);
+        ensure(8);
+        segment.set(DOUBLE_LAYOUT, offset, value);
+        offset += 8;
+        return this;
+    }
+
+    public TagWriter putString(String name, String value) {
+        header(STRING, name);
+        writeUTF(value);
+        return this;
+    }
+
+    public TagWriter putIntArray(String name, int[] values, int length) {
+        header(INT_ARRAY, name);
+        ensure(4L + 4L * length);
+        segment.set(INT_LAYOUT, offset, length);
+        MemorySegment.copy(values, 0, segment, INT_LAYOUT, offset + 4, length);
+        offset += 4L + 4L * length;
+        return this;
+    }
+
+    public TagWriter putIntArray(String name, int[] values) {
+        return putIntArray(name, values, values.length);
+    }
+
+    public TagWriter putLongArray(String name, long[] values) {
+        header(LONG_ARRAY, name);
+        ensure(4L + 8L * values.length);
+        segment.set(INT_LAYOUT, offset, values.length);
+        MemorySegment.copy(values, 0, segment, LONG_LAYOUT, offset + 4, values.length);
+        offset += 4L + 8L * values.length;
+        return this;
+    }
+
+    /**
+     * Returns the written bytes.
+     *
+     * @return a segment backed by the internal buffer; valid until the next write.
+     */
+    public MemorySegment toSegment() {
+        return segment.asSlice(0, offset);
+    }
+
+    public long size() {
+        return offset;
+    }
+}
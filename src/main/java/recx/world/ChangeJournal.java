@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world;
+
+/**
+ * A bounded ring buffer of block changes.
+ * <p>
+ * Each consumer drains the changes from its own {@link Cursor}. When a consumer falls behind by more than
+ * the capacity, the oldest changes are lost for it, and it must resynchronize from the world instead.
+ * <p>
+ * The journal is confined to the game thread.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class ChangeJournal {
+    private final int capacity;
+    private final int mask;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] zs;
+    private final int[] oldRawIds;
+    private final int[] newRawIds;
+    private long head = 0;
+
+    /**
+     * A visitor of the changes.
+     *
+     * @author squid233
+     * @since 0.1.0
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(int x, int y, int z, int oldRawId, int newRawId);
+    }
+
+    /**
+     * The read position of a consumer.
+     *
+     * @author squid233
+     * @since 0.1.0
+     */
+    public final class Cursor {
+        private long position;
+
+        private Cursor(long position) {
+            this.position = position;
+        }
+
+        /**
+         * Returns {@code true} if changes after this cursor were overwritten.
+         *
+         * @return {@code true} if the consumer must resynchronize.
+         */
+        public boolean isLost() {
+            return head - position > capacity;
+        }
+
+        public int available() {
+            return (int) Math.min(head - position, capacity);
+        }
+
+        /**
+         * Visits at most {@code limit} changes from this cursor, oldest first.
+         *
+         * @param visitor the visitor.
+         * @param limit   the maximum count of changes to visit.
+         * @return the count of visited changes, or {@code -1} if changes were lost;
+         * the cursor then moves to the newest position, and the consumer must resynchronize.
+         */
+        public int drain(Visitor visitor, int limit) {
+            if (isLost()) {
+                position = head;
+                return -1;
+            }
+            final int count = (int) Math.min(head - position, limit);
+            for (int i = 0; i < count; i++) {
+                final int index = (int) (position++ & mask);
+                visitor.visit(xs[index], ys[index], zs[index], oldRawIds[index], newRawIds[index]);
+            }
+            return count;
+        }
+
+        public int drain(Visitor visitor) {
+            return drain(visitor, capacity);
+        }
+
+        public long position() {
+            return position;
+        }
+    }
+
+    /**
+     * Creates the journal.
+     *
+     * @param capacity the maximum count of retained changes, rounded up to a power of two.
+     */
+    public ChangeJournal(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.xs = new int[this.capacity];
+        this.ys = new int[this.capacity];
+        this.zs = new int[this.capacity];
+        this.oldRawIds = new int[this.capacity];
+        this.newRawIds = new int[this.capacity];
+    }
+
+    public void record(int x, int y, int z, int oldRawId, int newRawId) {
+        final int index = (int) (head & mask);
+        xs[index] = x;
+        ys[index] = y;
+        zs[index] = z;
+        oldRawIds[index] = oldRawId;
+        newRawIds[index] = newRawId;
+        head++;
+    }
+
+    /**
+     * Creates a cursor at the newest position; the consumer sees the changes recorded after this call.
+     *
+     * @return the cursor.
+     */
+    public Cursor cursor() {
+        return new Cursor(head);
+    }
+
+    /**
+     * Returns the count of the changes ever recorded.
+     *
+     * @return the position after the newest change.
+     */
+    public long head() {
+        return head;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
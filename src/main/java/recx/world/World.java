@@ -16,90 +16,285 @@
 
 package recx.world;
 
+import org.jetbrains.annotations.Nullable;
+import recx.registry.BuiltinRegistries;
 import recx.world.block.Block;
 import recx.world.block.Blocks;
+import recx.world.chunk.Chunk;
+import recx.world.chunk.ChunkMap;
+import recx.world.chunk.ChunkSection;
+import recx.world.gen.WorldGenerator;
 import recx.world.phys.AABBox;
+import recx.world.storage.RegionStorage;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
+ * The world is unbounded along x, and chunks are loaded on demand.
+ * <p>
+ * Chunks can be requested in advance; they are then loaded or generated on the executor of the generator,
+ * and added to the world by {@link #acceptChunks()} on the game thread.
+ *
  * @author squid233
  * @since 0.1.0
  */
 public final class World {
-    private final Block[] blocks;
-    private final int width;
+    private final ChunkMap chunks = new ChunkMap();
+    private final Map<Integer, CompletableFuture<Chunk>> pendingChunks = new HashMap<>();
+    private final @Nullable RegionStorage storage;
+    private final WorldGenerator generator;
     private final int height;
     private final int depth;
-    private final AABBox borderMinX;
-    private final AABBox borderMaxX;
     private final AABBox borderMinZ;
     private final AABBox borderMaxZ;
+    private Chunk lastChunk = null;
+    private @Nullable ChangeJournal journal = null;
 
-    public World(int width, int height, int depth) {
-        this.blocks = new Block[width * height * depth];
-        this.width = width;
+    public World(int height, int depth, @Nullable RegionStorage storage, WorldGenerator generator) {
+        this.storage = storage;
+        this.generator = generator;
         this.height = height;
         this.depth = depth;
-        this.borderMinX = AABBox.ofPos(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
-            0.0, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
-        this.borderMaxX = AABBox.ofPos(width, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
-            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
         this.borderMinZ = AABBox.ofPos(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
             Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0);
         this.borderMaxZ = AABBox.ofPos(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, depth,
             Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
-        Arrays.fill(blocks, Blocks.AIR);
-        for (int x = 0; x < width; x++) {
-            for (int z = 0; z < depth; z++) {
-                setBlock(Blocks.BEDROCK, x, 0, z);
-                setBlock(Blocks.STONE, x, 1, z);
-                setBlock(Blocks.COBBLESTONE, x, 2, z);
-                setBlock(Blocks.DIRT, x, 3, z);
-                setBlock(Blocks.GRASS_BLOCK, x, 4, z);
+    }
+
+    public World(int height, int depth, @Nullable RegionStorage storage) {
+        this(height, depth, storage, WorldGenerator.createDefault(0L));
+    }
+
+    public World(int height, int depth) {
+        this(height, depth, null);
+    }
+
+    /**
+     * Gets the loaded chunk at the given chunk x.
+     *
+     * @param chunkX the chunk x.
+     * @return the chunk, or {@code null} if the chunk is not loaded.
+     */
+    public Chunk getChunk(int chunkX) {
+        final Chunk last = lastChunk;
+        if (last != null && last.x() == chunkX) {
+            return last;
+        }
+        final Chunk chunk = chunks.get(Chunk.toLong(chunkX));
+        if (chunk != null) {
+            lastChunk = chunk;
+        }
+        return chunk;
+    }
+
+    private Chunk readChunk(int chunkX) {
+        if (storage != null) {
+            try {
+                final Chunk chunk = storage.loadChunk(chunkX, height);
+                if (chunk != null && chunk.x() == chunkX && chunk.depth() == depth) {
+                    return chunk;
+                }
+            } catch (IOException | RuntimeException e) {
+                // todo: log
+                System.err.println("Failed to load chunk " + chunkX);
+                e.printStackTrace();
+            }
+        }
+        return null;
+    }
+
+    private Chunk readOrGenerateChunk(int chunkX) {
+        final Chunk chunk = readChunk(chunkX);
+        return chunk != null ? chunk : generator.generate(chunkX, height, depth);
+    }
+
+    private void addChunk(Chunk chunk) {
+        chunks.put(chunk.toLong(), chunk);
+        lastChunk = chunk;
+    }
+
+    /**
+     * Gets the chunk at the given chunk x, and loads it from the storage or generates it if it is not loaded.
+     * Waits for the chunk if it was requested.
+     *
+     * @param chunkX the chunk x.
+     * @return the chunk.
+     */
+    public Chunk getOrLoadChunk(int chunkX) {
+        Chunk chunk = getChunk(chunkX);
+        if (chunk == null) {
+            final CompletableFuture<Chunk> future = pendingChunks.remove(chunkX);
+            if (future != null) {
+                try {
+                    chunk = future.join();
+                } catch (CompletionException e) {
+                    // todo: log
+                    e.printStackTrace();
+                }
+            }
+            if (chunk == null) {
+                chunk = readOrGenerateChunk(chunkX);
+            }
+            addChunk(chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * Requests the chunks in the given range to be loaded or generated in the background.
+     *
+     * @param fromChunkX the first chunk x, inclusive.
+     * @param toChunkX   the last chunk x, inclusive.
+     */
+    public void requestChunks(int fromChunkX, int toChunkX) {
+        for (int x = fromChunkX; x <= toChunkX; x++) {
+            if (getChunk(x) == null && !pendingChunks.containsKey(x)) {
+                final int chunkX = x;
+                pendingChunks.put(x, CompletableFuture.supplyAsync(() -> readOrGenerateChunk(chunkX), generator.executor()));
+            }
+        }
+    }
+
+    /**
+     * Adds the requested chunks that are ready to the world.
+     */
+    public void acceptChunks() {
+        for (Iterator<CompletableFuture<Chunk>> it = pendingChunks.values().iterator(); it.hasNext(); ) {
+            final CompletableFuture<Chunk> future = it.next();
+            if (future.isDone()) {
+                it.remove();
+                try {
+                    addChunk(future.join());
+                } catch (CompletionException e) {
+                    // todo: log
+                    e.printStackTrace();
+                }
             }
         }
     }
 
+    /**
+     * Ensures the chunks in the given range are loaded.
+     *
+     * @param fromChunkX the first chunk x, inclusive.
+     * @param toChunkX   the last chunk x, inclusive.
+     */
+    public void loadChunks(int fromChunkX, int toChunkX) {
+        for (int x = fromChunkX; x <= toChunkX; x++) {
+            getOrLoadChunk(x);
+        }
+    }
+
+    public Iterable<Chunk> chunks() {
+        return chunks;
+    }
+
+    /**
+     * Saves all loaded chunks to the storage.
+     *
+     * @throws IOException if failed to write the storage.
+     */
+    public void save() throws IOException {
+        if (storage == null) return;
+        for (Chunk chunk : chunks) {
+            storage.saveChunk(chunk);
+        }
+    }
+
+    public @Nullable RegionStorage storage() {
+        return storage;
+    }
+
+    public WorldGenerator generator() {
+        return generator;
+    }
+
+    /**
+     * Sets the change journal which records the changes made by {@link #setBlock(Block, int, int, int)}.
+     *
+     * @param journal the journal, or {@code null} to disable the journal.
+     */
+    public void setJournal(@Nullable ChangeJournal journal) {
+        this.journal = journal;
+    }
+
+    public @Nullable ChangeJournal journal() {
+        return journal;
+    }
+
     public void setBlock(Block block, int x, int y, int z) {
         if (isInsideWorld(x, y, z)) {
-            blocks[(y * depth + z) * width + x] = block;
+            final Block prev = getOrLoadChunk(Chunk.toChunkCoord(x)).setBlock(block, x & ChunkSection.MASK, y, z);
+            if (journal != null && prev != block) {
+                journal.record(x, y, z, BuiltinRegistries.BLOCK.getRawId(prev), BuiltinRegistries.BLOCK.getRawId(block));
+            }
         }
     }
 
     public Block getBlock(int x, int y, int z) {
         if (isInsideWorld(x, y, z)) {
-            return blocks[(y * depth + z) * width + x];
+            final Chunk chunk = getChunk(Chunk.toChunkCoord(x));
+            if (chunk != null) {
+                return chunk.getBlock(x & ChunkSection.MASK, y, z);
+            }
         }
         return Blocks.AIR;
     }
 
+    /**
+     * Gets the y above the topmost non-air block of the given column.
+     *
+     * @param x the x.
+     * @param z the z.
+     * @return the y, or {@code 0} if the column is empty.
+     */
+    public int getTopY(int x, int z) {
+        for (int y = height - 1; y >= 0; y--) {
+            if (!getBlock(x, y, z).isAir()) {
+                return y + 1;
+            }
+        }
+        return 0;
+    }
+
     public boolean isInsideWorld(int x, int y, int z) {
-        return x >= 0 && x < width &&
-               y >= 0 && y < height &&
+        return y >= 0 && y < height &&
                z >= 0 && z < depth;
     }
 
     public List<AABBox> getCollisionsIn(AABBox box) {
-        final int x0 = Math.max(0, (int) Math.floor(box.minX()));
+        final int x0 = (int) Math.floor(box.minX());
         final int y0 = Math.max(0, (int) Math.floor(box.minY()));
         final int z0 = Math.max(0, (int) Math.floor(box.minZ()));
-        final int x1 = Math.min(width, (int) Math.floor(box.maxX() + 1.0));
+        final int x1 = (int) Math.floor(box.maxX() + 1.0);
         final int y1 = Math.min(height, (int) Math.floor(box.maxY() + 1.0));
         final int z1 = Math.min(depth, (int) Math.floor(box.maxZ() + 1.0));
         List<AABBox> list = new ArrayList<>(16);
-        list.add(borderMinX);
-        list.add(borderMaxX);
         list.add(borderMinZ);
         list.add(borderMaxZ);
-        for (int x = x0; x < x1; x++) {
-            for (int y = y0; y < y1; y++) {
-                for (int z = z0; z < z1; z++) {
-                    final AABBox collision = getBlock(x, y, z).getCollisionShape();
-                    if (collision != Block.EMPTY) {
-                        list.add(collision.move(x, y, z));
+        for (int cx = Chunk.toChunkCoord(x0), cx1 = Chunk.toChunkCoord(x1 - 1); cx <= cx1; cx++) {
+            final Chunk chunk = getChunk(cx);
+            if (chunk == null) continue;
+            final int baseX = cx << ChunkSection.SHIFT;
+            for (int sy = y0 >> ChunkSection.SHIFT, sy1 = (y1 - 1) >> ChunkSection.SHIFT; sy <= sy1; sy++) {
+                final ChunkSection section = chunk.getSection(sy);
+                if (section == null) continue;
+                final int baseY = sy << ChunkSection.SHIFT;
+                for (int x = Math.max(x0, baseX), ex = Math.min(x1, baseX + ChunkSection.SIZE); x < ex; x++) {
+                    for (int y = Math.max(y0, baseY), ey = Math.min(y1, baseY + ChunkSection.SIZE); y < ey; y++) {
+                        for (int z = z0; z < z1; z++) {
+                            final AABBox collision = section.getBlock(x - baseX, y - baseY, z).getCollisionShape();
+                            if (collision != Block.EMPTY) {
+                                list.add(collision.move(x, y, z));
+                            }
+                        }
                     }
                 }
             }
@@ -107,10 +302,6 @@ public final class World {
         return list;
     }
 
-    public int width() {
-        return width;
-    }
-
     public int height() {
         return height;
     }
@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.chunk;
+
+import recx.world.block.Block;
+import recx.world.block.Blocks;
+
+/**
+ * A {@value ChunkSection#SIZE} blocks wide column of the world, made of sections stacked along y.
+ * <p>
+ * The x passed to a chunk is local to the chunk; the y is absolute.
+ * <p>
+ * Each section slot has a version stamp that increases on each change, even while the section is absent.
+ * A consumer compares the versions against the ones it saw last, so any count of consumers can track a chunk;
+ * the changed cells themselves are recorded by the {@link recx.world.ChangeJournal} of the world.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class Chunk {
+    private final int x;
+    private final int depth;
+    private final ChunkSection[] sections;
+    private final long[] versions;
+    private volatile boolean dirty = false;
+
+    public Chunk(int x, int height, int depth) {
+        this(x, depth, new ChunkSection[(height + ChunkSection.MASK) >> ChunkSection.SHIFT]);
+    }
+
+    private Chunk(int x, int depth, ChunkSection[] sections) {
+        this.x = x;
+        this.depth = depth;
+        this.sections = sections;
+        this.versions = new long[sections.length];
+    }
+
+    public static long toLong(int chunkX) {
+        return chunkX;
+    }
+
+    public static int toChunkCoord(int blockCoord) {
+        return blockCoord >> ChunkSection.SHIFT;
+    }
+
+    public Block getBlock(int x, int y, int z) {
+        final ChunkSection section = sections[y >> ChunkSection.SHIFT];
+        if (section != null) {
+            return section.getBlock(x, y & ChunkSection.MASK, z);
+        }
+        return Blocks.AIR;
+    }
+
+    /**
+     * Sets the block at the given position.
+     *
+     * @param block the new block.
+     * @param x     the local x.
+     * @param y     the y.
+     * @param z     the z layer.
+     * @return the previous block.
+     */
+    public Block setBlock(Block block, int x, int y, int z) {
+        final int index = y >> ChunkSection.SHIFT;
+        ChunkSection section = sections[index];
+        if (section == null) {
+            if (block.isAir()) return Blocks.AIR;
+            section = new ChunkSection(depth);
+            sections[index] = section;
+        } else if (section.isShared()) {
+            // copy on write
+            section = section.copy();
+            sections[index] = section;
+        }
+        final int localY = y & ChunkSection.MASK;
+        final Block prev = section.setBlock(block, x, localY, z);
+        if (section.isEmpty()) {
+            sections[index] = null;
+        }
+        if (prev != block) {
+            dirty = true;
+            versions[index]++;
+        }
+        return prev;
+    }
+
+    private static void share(ChunkSection section) {
+        if (section != null && !section.isShared()) {
+            section.markShared();
+        }
+    }
+
+    /**
+     * Creates a read-only snapshot of this chunk. The sections are shared until this chunk modifies them,
+     * so taking a snapshot only marks the sections shared.
+     *
+     * @return the snapshot.
+     */
+    public Chunk snapshot() {
+        for (ChunkSection section : sections) {
+            share(section);
+        }
+        final Chunk snapshot = new Chunk(x, depth, sections.clone());
+        System.arraycopy(versions, 0, snapshot.versions, 0, versions.length);
+        return snapshot;
+    }
+
+    /**
+     * Gets the section at the given section y as a read-only snapshot, like {@link #snapshot()} does for the chunk.
+     * The snapshot can be read from other threads.
+     *
+     * @param sectionY the section y.
+     * @return the section, or {@code null} if the section is out of the chunk or contains only air.
+     */
+    public ChunkSection snapshotSection(int sectionY) {
+        final ChunkSection section = getSection(sectionY);
+        share(section);
+        return section;
+    }
+
+    /**
+     * Returns {@code true} if this chunk was modified since the last {@link #clearDirty()}.
+     *
+     * @return {@code true} if this chunk should be saved.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void markDirty() {
+        dirty = true;
+    }
+
+    public void clearDirty() {
+        dirty = false;
+    }
+
+    /**
+     * Gets the section at the given section y.
+     *
+     * @param sectionY the section y.
+     * @return the section, or {@code null} if the section is out of the chunk or contains only air.
+     */
+    public ChunkSection getSection(int sectionY) {
+        if (sectionY >= 0 && sectionY < sections.length) {
+            return sections[sectionY];
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the section at the given section y, and increases the version of its slot.
+     *
+     * @param sectionY the section y.
+     * @param section  the section, or {@code null} to clear the section.
+     */
+    public void setSection(int sectionY, ChunkSection section) {
+        sections[sectionY] = section != null && !section.isEmpty() ? section : null;
+        versions[sectionY]++;
+    }
+
+    /**
+     * Gets the version stamp of the section slot at the given section y, which increases on each change.
+     *
+     * @param sectionY the section y.
+     * @return the version.
+     */
+    public long sectionVersion(int sectionY) {
+        return versions[sectionY];
+    }
+
+    public int sectionCount() {
+        return sections.length;
+    }
+
+    public long toLong() {
+        return toLong(x);
+    }
+
+    public int x() {
+        return x;
+    }
+
+    public int depth() {
+        return depth;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.chunk;
+
+import recx.world.block.Block;
+import recx.world.block.Blocks;
+
+/**
+ * A {@value #SIZE}x{@value #SIZE} section of the world, across all z layers.
+ * <p>
+ * The coordinates passed to a section are local to the section.
+ * <p>
+ * The section maintains bitmasks of its non-air and opaque cells, indexed like the cells.
+ * Each {@code long} holds {@value #ROWS_PER_WORD} rows of a z layer, so the visibility of a layer
+ * is computed 64 cells at a time.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class ChunkSection {
+    public static final int SHIFT = 4;
+    public static final int SIZE = 1 << SHIFT;
+    public static final int MASK = SIZE - 1;
+    public static final int ROWS_PER_WORD = Long.SIZE / SIZE;
+    public static final int WORDS_PER_LAYER = SIZE / ROWS_PER_WORD;
+    private final int depth;
+    private final PalettedContainer blocks;
+    private final long[] nonAirBits;
+    private final long[] opaqueBits;
+    private int nonAirCount = 0;
+    private boolean shared = false;
+
+    public ChunkSection(int depth) {
+        this.depth = depth;
+        this.blocks = new PalettedContainer(SIZE * SIZE * depth, Blocks.AIR);
+        this.nonAirBits = new long[WORDS_PER_LAYER * depth];
+        this.opaqueBits = new long[WORDS_PER_LAYER * depth];
+    }
+
+    public ChunkSection(int depth, PalettedContainer blocks) {
+        if (blocks.size() != SIZE * SIZE * depth) {
+            throw new IllegalArgumentException("Invalid container size " + blocks.size() + " for depth " + depth);
+        }
+        this.depth = depth;
+        this.blocks = blocks;
+        this.nonAirBits = new long[WORDS_PER_LAYER * depth];
+        this.opaqueBits = new long[WORDS_PER_LAYER * depth];
+        for (int i = 0, size = blocks.size(); i < size; i++) {
+            updateBits(i, blocks.get(i));
+            if (!blocks.get(i).isAir()) nonAirCount++;
+        }
+    }
+
+    private ChunkSection(ChunkSection other) {
+        this.depth = other.depth;
+        this.blocks = other.blocks.copy();
+        this.nonAirBits = other.nonAirBits.clone();
+        this.opaqueBits = other.opaqueBits.clone();
+        this.nonAirCount = other.nonAirCount;
+    }
+
+    private static int index(int x, int y, int z) {
+        return (z << SHIFT | y) << SHIFT | x;
+    }
+
+    private void updateBits(int index, Block block) {
+        final long bit = 1L << index;
+        if (block.isAir()) {
+            nonAirBits[index >> 6] &= ~bit;
+        } else {
+            nonAirBits[index >> 6] |= bit;
+        }
+        if (block.isTextureTranslucent()) {
+            opaqueBits[index >> 6] &= ~bit;
+        } else {
+            opaqueBits[index >> 6] |= bit;
+        }
+    }
+
+    public Block getBlock(int x, int y, int z) {
+        return blocks.get(index(x, y, z));
+    }
+
+    /**
+     * Sets the block at the given local position.
+     *
+     * @param block the new block.
+     * @param x     the local x.
+     * @param y     the local y.
+     * @param z     the z layer.
+     * @return the previous block.
+     */
+    public Block setBlock(Block block, int x, int y, int z) {
+        final int index = index(x, y, z);
+        final Block prev = blocks.set(index, block);
+        if (prev != block) {
+            updateBits(index, block);
+            if (prev.isAir()) nonAirCount++;
+            if (block.isAir()) nonAirCount--;
+        }
+        return prev;
+    }
+
+    /**
+     * Returns {@code true} if this section contains only air, and can be dropped.
+     *
+     * @return {@code true} if this section contains only air.
+     */
+    public boolean isEmpty() {
+        return nonAirCount == 0;
+    }
+
+    /**
+     * Marks this section as shared with a snapshot. A shared section must not be modified anymore.
+     */
+    public void markShared() {
+        shared = true;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    public ChunkSection copy() {
+        return new ChunkSection(this);
+    }
+
+    /**
+     * Computes the bitmask of the visible cells of the given z layer: the non-air cells which are not
+     * covered by an opaque cell of the layer in front.
+     *
+     * @param z   the z layer.
+     * @param dst the destination of {@value #WORDS_PER_LAYER} words, indexed by {@code y / ROWS_PER_WORD}.
+     */
+    public void visibleBits(int z, long[] dst) {
+        final int base = z * WORDS_PER_LAYER;
+        if (z == depth - 1) {
+            System.arraycopy(nonAirBits, base, dst, 0, WORDS_PER_LAYER);
+            return;
+        }
+        for (int i = 0; i < WORDS_PER_LAYER; i++) {
+            // andNot
+            dst[i] = nonAirBits[base + i] & ~opaqueBits[base + WORDS_PER_LAYER + i];
+        }
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public PalettedContainer blocks() {
+        return blocks;
+    }
+}
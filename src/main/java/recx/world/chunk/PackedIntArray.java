@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.chunk;
+
+/**
+ * A fixed-size array of unsigned integers packed into {@code long} words.
+ * <p>
+ * Entries never span two words, so a word holds {@code 64 / bits} entries.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class PackedIntArray {
+    private final long[] data;
+    private final int bits;
+    private final int size;
+    private final long mask;
+    private final int valuesPerWord;
+
+    public PackedIntArray(int bits, int size, long[] data) {
+        if (bits < 1 || bits > 32) {
+            throw new IllegalArgumentException("Bits per entry out of range [1, 32]: " + bits);
+        }
+        this.bits = bits;
+        this.size = size;
+        this.mask = (1L << bits) - 1L;
+        this.valuesPerWord = 64 / bits;
+        final int words = wordCount(bits, size);
+        if (data == null) {
+            this.data = new long[words];
+        } else if (data.length == words) {
+            this.data = data;
+        } else {
+            throw new IllegalArgumentException("Invalid length given for storage, got: " + data.length + " but expected: " + words);
+        }
+    }
+
+    public PackedIntArray(int bits, int size) {
+        this(bits, size, null);
+    }
+
+    public static int wordCount(int bits, int size) {
+        final int valuesPerWord = 64 / bits;
+        return (size + valuesPerWord - 1) / valuesPerWord;
+    }
+
+    public int get(int index) {
+        final int word = index / valuesPerWord;
+        final int shift = (index - word * valuesPerWord) * bits;
+        return (int) ((data[word] >>> shift) & mask);
+    }
+
+    public void set(int index, int value) {
+        final int word = index / valuesPerWord;
+        final int shift = (index - word * valuesPerWord) * bits;
+        data[word] = (data[word] & ~(mask << shift)) | ((value & mask) << shift);
+    }
+
+    public int getAndSet(int index, int value) {
+        final int word = index / valuesPerWord;
+        final int shift = (index - word * valuesPerWord) * bits;
+        final long l = data[word];
+        data[word] = (l & ~(mask << shift)) | ((value & mask) << shift);
+        return (int) ((l >>> shift) & mask);
+    }
+
+    public PackedIntArray copy() {
+        return new PackedIntArray(bits, size, data.clone());
+    }
+
+    public long[] data() {
+        return data;
+    }
+
+    public int bits() {
+        return bits;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.chunk;
+
+import recx.registry.BuiltinRegistries;
+import recx.world.block.Block;
+
+import java.util.Arrays;
+
+/**
+ * A palette-compressed block container.
+ * <p>
+ * The raw ids of the blocks are mapped into a local palette, and the palette indices are stored
+ * in a {@link PackedIntArray}. The bits per entry only grow when the palette is full.
+ * A container holding only one block has no storage at all.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class PalettedContainer {
+    private final int size;
+    private int[] rawIds;
+    private Block[] palette;
+    private int paletteSize;
+    private int bits;
+    private PackedIntArray storage;
+
+    public PalettedContainer(int size, Block value) {
+        this.size = size;
+        fill(value);
+    }
+
+    private PalettedContainer(int size, int[] rawIds, Block[] palette, int paletteSize, int bits, PackedIntArray storage) {
+        this.size = size;
+        this.rawIds = rawIds;
+        this.palette = palette;
+        this.paletteSize = paletteSize;
+        this.bits = bits;
+        this.storage = storage;
+    }
+
+    /**
+     * Creates a container from the raw palette and the packed palette indices.
+     *
+     * @param size     the count of entries.
+     * @param rawIds   the raw ids of the palette entries.
+     * @param bits     the bits per entry; {@code 0} for a single-value container.
+     * @param data     the packed palette indices; ignored for a single-value container.
+     * @return the container.
+     */
+    public static PalettedContainer of(int size, int[] rawIds, int bits, long[] data) {
+        if (rawIds.length == 0 || rawIds.length > (1 << bits)) {
+            throw new IllegalArgumentException("Invalid palette size " + rawIds.length + " for " + bits + " bits per entry");
+        }
+        final Block[] palette = new Block[rawIds.length];
+        for (int i = 0; i < rawIds.length; i++) {
+            palette[i] = BuiltinRegistries.BLOCK.get(rawIds[i]);
+        }
+        return new PalettedContainer(size,
+            rawIds,
+            palette,
+            rawIds.length,
+            bits,
+            bits == 0 ? null : new PackedIntArray(bits, size, data));
+    }
+
+    private static int bitsFor(int paletteSize) {
+        return paletteSize <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(paletteSize - 1);
+    }
+
+    /**
+     * Resets this container to the single-value state.
+     *
+     * @param value the block to fill with.
+     */
+    public void fill(Block value) {
+        rawIds = new int[]{BuiltinRegistries.BLOCK.getRawId(value)};
+        palette = new Block[]{value};
+        paletteSize = 1;
+        bits = 0;
+        storage = null;
+    }
+
+    private int indexOf(Block block) {
+        for (int i = 0; i < paletteSize; i++) {
+            if (palette[i] == block) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int add(Block block) {
+        final int index = paletteSize;
+        if (index >= (1 << bits)) {
+            resize(bits + 1);
+        }
+        if (index >= palette.length) {
+            rawIds = Arrays.copyOf(rawIds, palette.length * 2);
+            palette = Arrays.copyOf(palette, palette.length * 2);
+        }
+        rawIds[index] = BuiltinRegistries.BLOCK.getRawId(block);
+        palette[index] = block;
+        paletteSize++;
+        return index;
+    }
+
+    private void resize(int newBits) {
+        final PackedIntArray newStorage = new PackedIntArray(newBits, size);
+        if (storage != null) {
+            for (int i = 0; i < size; i++) {
+                newStorage.set(i, storage.get(i));
+            }
+        }
+        bits = newBits;
+        storage = newStorage;
+    }
+
+    public Block get(int index) {
+        return storage == null ? palette[0] : palette[storage.get(index)];
+    }
+
+    public int getRawId(int index) {
+        return storage == null ? rawIds[0] : rawIds[storage.get(index)];
+    }
+
+    /**
+     * Sets the block at the given index.
+     *
+     * @param index the index.
+     * @param block the new block.
+     * @return the previous block.
+     */
+    public Block set(int index, Block block) {
+        if (storage == null && palette[0] == block) {
+            return block;
+        }
+        int id = indexOf(block);
+        if (id < 0) {
+            id = add(block);
+        }
+        return palette[storage.getAndSet(index, id)];
+    }
+
+    /**
+     * Drops the unused palette entries, and returns to the single-value state if only one entry is used.
+     */
+    public void compact() {
+        if (storage == null) return;
+        final int[] counts = new int[paletteSize];
+        for (int i = 0; i < size; i++) {
+            counts[storage.get(i)]++;
+        }
+        int used = 0;
+        final int[] remap = new int[paletteSize];
+        for (int i = 0; i < paletteSize; i++) {
+            if (counts[i] > 0) {
+                remap[i] = used;
+                rawIds[used] = rawIds[i];
+                palette[used] = palette[i];
+                used++;
+            }
+        }
+        Arrays.fill(palette, used, paletteSize, null);
+        if (used == 1) {
+            fill(palette[0]);
+            return;
+        }
+        final int newBits = bitsFor(used);
+        final PackedIntArray newStorage = newBits == bits ? storage : new PackedIntArray(newBits, size);
+        for (int i = 0; i < size; i++) {
+            newStorage.set(i, remap[storage.get(i)]);
+        }
+        paletteSize = used;
+        bits = newBits;
+        storage = newStorage;
+    }
+
+    public PalettedContainer copy() {
+        return new PalettedContainer(size,
+            rawIds.clone(),
+            palette.clone(),
+            paletteSize,
+            bits,
+            storage != null ? storage.copy() : null);
+    }
+
+    public int getPaletteRawId(int paletteIndex) {
+        return rawIds[paletteIndex];
+    }
+
+    /**
+     * Returns the packed palette indices.
+     *
+     * @return the backing words, or {@code null} if this container is single-value.
+     */
+    public long[] data() {
+        return storage != null ? storage.data() : null;
+    }
+
+    public boolean isSingleValue() {
+        return storage == null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int paletteSize() {
+        return paletteSize;
+    }
+
+    public int bits() {
+        return bits;
+    }
+}
@@ -18,6 +18,10 @@ package recx.world.entity;
 
 import org.joml.Math;
 import org.joml.Vector3d;
+import org.joml.Vector3dc;
+import recx.util.tag.TagReader;
+import recx.util.tag.TagTypes;
+import recx.util.tag.TagWriter;
 import recx.world.World;
 import recx.world.phys.AABBox;
 
@@ -121,4 +125,51 @@ public class Entity {
     public void tick() {
         prevPosition.set(position);
     }
+
+    private static void writeVector(TagWriter writer, String name, Vector3dc vector) {
+        writer.beginCompound(name)
+            .putDouble("X", vector.x())
+            .putDouble("Y", vector.y())
+            .putDouble("Z", vector.z())
+            .endCompound();
+    }
+
+    private static void readVector(TagReader reader, Vector3d dest) {
+        while (reader.next() != TagTypes.END) {
+            if (reader.is("X")) dest.x = reader.readDouble();
+            else if (reader.is("Y")) dest.y = reader.readDouble();
+            else if (reader.is("Z")) dest.z = reader.readDouble();
+            else reader.skip();
+        }
+    }
+
+    /**
+     * Writes the state of this entity into the current compound.
+     *
+     * @param writer the writer.
+     */
+    public void write(TagWriter writer) {
+        writeVector(writer, "Position", position);
+        writeVector(writer, "Velocity", velocity);
+        writer.putBoolean("OnGround", onGround)
+            .putBoolean("Flying", flying);
+    }
+
+    /**
+     * Reads the state of this entity from the current compound, until the end of the compound.
+     *
+     * @param reader the reader.
+     */
+    public void read(TagReader reader) {
+        final Vector3d pos = new Vector3d(position);
+        while (reader.next() != TagTypes.END) {
+            if (reader.is("Position")) readVector(reader, pos);
+            else if (reader.is("Velocity")) readVector(reader, velocity);
+            else if (reader.is("OnGround")) onGround = reader.readBoolean();
+            else if (reader.is("Flying")) flying = reader.readBoolean();
+            else reader.skip();
+        }
+        teleport(pos.x(), pos.y(), pos.z());
+        prevPosition.set(position);
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.gen;
+
+import recx.world.block.Blocks;
+import recx.world.chunk.Chunk;
+import recx.world.chunk.ChunkSection;
+import recx.world.gen.noise.PerlinNoise;
+
+/**
+ * Carves caves into the front layer from two noise fields: large caverns where the density noise
+ * is above the threshold, and winding tunnels where the tunnel noise is close to zero.
+ * <p>
+ * The noise is evaluated in rows of one chunk width.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class CaveStage implements GenerationStage {
+    private static final long CAVERN_SALT = 0x63617665L;
+    private static final long TUNNEL_SALT = 0x74756e6eL;
+    private static final double CAVERN_SCALE_X = 40.0;
+    private static final double CAVERN_SCALE_Y = 20.0;
+    private static final double TUNNEL_SCALE_X = 64.0;
+    private static final double TUNNEL_SCALE_Y = 24.0;
+    private final int roof;
+    private final float threshold;
+    private final float tunnelWidth;
+
+    /**
+     * Creates the cave stage.
+     *
+     * @param roof        the minimum count of blocks between a cave and the surface.
+     * @param threshold   the density above which caverns are carved, in {@code [-1, 1]}.
+     * @param tunnelWidth the width of the tunnels in noise units.
+     */
+    public CaveStage(int roof, float threshold, float tunnelWidth) {
+        this.roof = roof;
+        this.threshold = threshold;
+        this.tunnelWidth = tunnelWidth;
+    }
+
+    @Override
+    public void generate(GenerationContext context) {
+        final Chunk chunk = context.chunk();
+        final int baseX = chunk.x() << ChunkSection.SHIFT;
+        final int z = context.depth() - 1;
+        int top = 0;
+        for (int x = 0; x < ChunkSection.SIZE; x++) {
+            top = Math.max(top, context.surfaceY(x) - roof);
+        }
+        final PerlinNoise caverns = context.noise(CAVERN_SALT);
+        final PerlinNoise tunnels = context.noise(TUNNEL_SALT);
+        final float[] cavern = new float[ChunkSection.SIZE];
+        final float[] tunnel = new float[ChunkSection.SIZE];
+        for (int y = 1; y < top; y++) {
+            caverns.sampleRow(baseX / CAVERN_SCALE_X, y / CAVERN_SCALE_Y, (float) (1.0 / CAVERN_SCALE_X),
+                cavern, 0, ChunkSection.SIZE);
+            tunnels.sampleRow(baseX / TUNNEL_SCALE_X, y / TUNNEL_SCALE_Y, (float) (1.0 / TUNNEL_SCALE_X),
+                tunnel, 0, ChunkSection.SIZE);
+            for (int x = 0; x < ChunkSection.SIZE; x++) {
+                if (y < context.surfaceY(x) - roof &&
+                    (cavern[x] > threshold || Math.abs(tunnel[x]) < tunnelWidth)) {
+                    chunk.setBlock(Blocks.AIR, x, y, z);
+                }
+            }
+        }
+    }
+}
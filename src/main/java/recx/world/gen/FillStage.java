@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.gen;
+
+import recx.world.block.Block;
+import recx.world.chunk.Chunk;
+import recx.world.chunk.ChunkSection;
+
+/**
+ * Fills the columns up to the surface height: the floor at y 0, then the base, the soil and the top block.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class FillStage implements GenerationStage {
+    private final Block floor;
+    private final Block base;
+    private final Block soil;
+    private final Block top;
+    private final int soilDepth;
+
+    public FillStage(Block floor, Block base, Block soil, Block top, int soilDepth) {
+        this.floor = floor;
+        this.base = base;
+        this.soil = soil;
+        this.top = top;
+        this.soilDepth = soilDepth;
+    }
+
+    @Override
+    public void generate(GenerationContext context) {
+        final Chunk chunk = context.chunk();
+        for (int x = 0; x < ChunkSection.SIZE; x++) {
+            final int surface = context.surfaceY(x);
+            for (int z = 0; z < context.depth(); z++) {
+                chunk.setBlock(floor, x, 0, z);
+                for (int y = 1; y < surface; y++) {
+                    chunk.setBlock(y < surface - soilDepth ? base : soil, x, y, z);
+                }
+                chunk.setBlock(top, x, surface, z);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.gen;
+
+import recx.world.chunk.Chunk;
+import recx.world.chunk.ChunkSection;
+import recx.world.gen.noise.PerlinNoise;
+
+import java.util.SplittableRandom;
+
+/**
+ * The state of a chunk being generated, passed through the stages.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class GenerationContext {
+    private final WorldGenerator generator;
+    private final long seed;
+    private final Chunk chunk;
+    private final int height;
+    private final int[] surface = new int[ChunkSection.SIZE];
+
+    public GenerationContext(WorldGenerator generator, Chunk chunk, int height) {
+        this.generator = generator;
+        this.seed = generator.seed();
+        this.chunk = chunk;
+        this.height = height;
+    }
+
+    /**
+     * Mixes the given values into a well distributed seed.
+     *
+     * @param seed   the world seed.
+     * @param chunkX the chunk x.
+     * @param salt   the salt of the stage.
+     * @return the mixed seed.
+     */
+    public static long mix(long seed, int chunkX, long salt) {
+        long h = seed ^ (chunkX * 0x9e3779b97f4a7c15L) ^ (salt * 0xbf58476d1ce4e5b9L);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Creates a random generator for the given chunk, which only depends on the world seed, the chunk and the salt.
+     *
+     * @param chunkX the chunk x.
+     * @param salt   the salt of the stage.
+     * @return the random generator.
+     */
+    public SplittableRandom random(int chunkX, long salt) {
+        return new SplittableRandom(mix(seed, chunkX, salt));
+    }
+
+    public SplittableRandom random(long salt) {
+        return random(chunk.x(), salt);
+    }
+
+    /**
+     * Gets the noise of the given salt, which only depends on the world seed and the salt.
+     *
+     * @param salt the salt.
+     * @return the noise.
+     */
+    public PerlinNoise noise(long salt) {
+        return generator.noise(salt);
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    public Chunk chunk() {
+        return chunk;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int depth() {
+        return chunk.depth();
+    }
+
+    /**
+     * Gets the y of the topmost solid block, computed by the heightmap stage.
+     *
+     * @param localX the x in the chunk.
+     * @return the surface y.
+     */
+    public int surfaceY(int localX) {
+        return surface[localX];
+    }
+
+    public void setSurfaceY(int localX, int y) {
+        surface[localX] = y;
+    }
+}
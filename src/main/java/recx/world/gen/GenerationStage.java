@@ -0,0 +1,35 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.gen;
+
+/**
+ * A stage of the world generator.
+ * <p>
+ * A stage may run on any thread, concurrently with other chunks, so it must only depend on the context.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+@FunctionalInterface
+public interface GenerationStage {
+    /**
+     * Generates the chunk of the context.
+     *
+     * @param context the generation context.
+     */
+    void generate(GenerationContext context);
+}
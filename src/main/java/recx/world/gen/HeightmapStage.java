@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.gen;
+
+import recx.world.chunk.ChunkSection;
+
+/**
+ * Computes the surface height of each column from fractal noise over the world x,
+ * so that the surface is continuous across chunks.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class HeightmapStage implements GenerationStage {
+    private static final long SALT = 0x68656967L;
+    private static final int OCTAVES = 3;
+    private final int baseHeight;
+    private final float amplitude;
+    private final double scale;
+
+    /**
+     * Creates the heightmap stage.
+     *
+     * @param baseHeight the average surface height.
+     * @param amplitude  the maximum deviation from the average height.
+     * @param scale      the horizontal length of the largest features in blocks.
+     */
+    public HeightmapStage(int baseHeight, float amplitude, double scale) {
+        this.baseHeight = baseHeight;
+        this.amplitude = amplitude;
+        this.scale = scale;
+    }
+
+    @Override
+    public void generate(GenerationContext context) {
+        final int baseX = context.chunk().x() << ChunkSection.SHIFT;
+        final float[] row = new float[ChunkSection.SIZE];
+        final float[] heights = new float[ChunkSection.SIZE];
+        float weight = 1f;
+        float total = 0f;
+        double frequency = 1.0 / scale;
+        for (int octave = 0; octave < OCTAVES; octave++) {
+            context.noise(SALT + octave).sampleRow(baseX * frequency, 0.5, (float) frequency, row, 0, ChunkSection.SIZE);
+            for (int x = 0; x < ChunkSection.SIZE; x++) {
+                heights[x] += row[x] * weight;
+            }
+            total += weight;
+            weight *= 0.5f;
+            frequency *= 2.0;
+        }
+        for (int x = 0; x < ChunkSection.SIZE; x++) {
+            final int y = baseHeight + (int) Math.floor(amplitude * heights[x] / total);
+            context.setSurfaceY(x, Math.max(1, Math.min(context.height() - 1, y)));
+        }
+    }
+}
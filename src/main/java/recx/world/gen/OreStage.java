@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.gen;
+
+import recx.registry.BuiltinRegistries;
+import recx.world.block.Block;
+import recx.world.chunk.Chunk;
+import recx.world.chunk.ChunkSection;
+
+import java.util.SplittableRandom;
+
+/**
+ * Places small deposits of a block, replacing only the target block.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class OreStage implements GenerationStage {
+    private static final long SALT = 0x6f726573L;
+    private final Block ore;
+    private final Block target;
+    private final int count;
+    private final int size;
+    private final int minY;
+    private final int maxY;
+    private final long salt;
+
+    /**
+     * Creates the ore stage.
+     *
+     * @param ore    the block of the deposits.
+     * @param target the block to replace.
+     * @param count  the count of deposits per chunk.
+     * @param size   the count of blocks per deposit.
+     * @param minY   the minimum y.
+     * @param maxY   the maximum y.
+     */
+    public OreStage(Block ore, Block target, int count, int size, int minY, int maxY) {
+        this.ore = ore;
+        this.target = target;
+        this.count = count;
+        this.size = size;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.salt = SALT + BuiltinRegistries.BLOCK.getRawId(ore);
+    }
+
+    @Override
+    public void generate(GenerationContext context) {
+        final Chunk chunk = context.chunk();
+        final SplittableRandom random = context.random(salt);
+        final int top = Math.min(maxY, context.height() - 1);
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(ChunkSection.SIZE);
+            int y = minY + random.nextInt(Math.max(1, top - minY));
+            final int z = random.nextInt(context.depth());
+            for (int j = 0; j < size; j++) {
+                if (x >= 0 && x < ChunkSection.SIZE && y >= minY && y <= top && chunk.getBlock(x, y, z) == target) {
+                    chunk.setBlock(ore, x, y, z);
+                }
+                // random walk to a neighbour
+                switch (random.nextInt(4)) {
+                    case 0 -> x++;
+                    case 1 -> x--;
+                    case 2 -> y++;
+                    default -> y--;
+                }
+            }
+        }
+    }
+}
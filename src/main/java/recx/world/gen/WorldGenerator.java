@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.gen;
+
+import recx.world.block.Blocks;
+import recx.world.chunk.Chunk;
+import recx.world.gen.noise.PerlinNoise;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Generates chunks by running the stages in order.
+ * <p>
+ * The result only depends on the seed and the chunk position, so the chunks can be generated in parallel.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class WorldGenerator {
+    private final long seed;
+    private final List<GenerationStage> stages;
+    private final Executor executor;
+    private final Map<Long, PerlinNoise> noises = new ConcurrentHashMap<>();
+
+    public WorldGenerator(long seed, List<GenerationStage> stages, Executor executor) {
+        this.seed = seed;
+        this.stages = List.copyOf(stages);
+        this.executor = executor;
+    }
+
+    public WorldGenerator(long seed, List<GenerationStage> stages) {
+        this(seed, stages, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates the default generator: heightmap, fill, caves and ores.
+     *
+     * @param seed the seed.
+     * @return the generator.
+     */
+    public static WorldGenerator createDefault(long seed) {
+        return new WorldGenerator(seed, List.of(
+            new HeightmapStage(64, 16f, 96.0),
+            new FillStage(Blocks.BEDROCK, Blocks.STONE, Blocks.DIRT, Blocks.GRASS_BLOCK, 3),
+            new CaveStage(4, 0.35f, 0.045f),
+            new OreStage(Blocks.COBBLESTONE, Blocks.STONE, 6, 8, 1, 64)
+        ));
+    }
+
+    /**
+     * Generates a chunk on the current thread.
+     *
+     * @param chunkX the chunk x.
+     * @param height the height of the world.
+     * @param depth  the depth of the world.
+     * @return the chunk.
+     */
+    public Chunk generate(int chunkX, int height, int depth) {
+        final Chunk chunk = new Chunk(chunkX, height, depth);
+        final GenerationContext context = new GenerationContext(this, chunk, height);
+        for (GenerationStage stage : stages) {
+            stage.generate(context);
+        }
+        return chunk;
+    }
+
+    /**
+     * Gets the noise of the given salt. The noise is shared by all chunks.
+     *
+     * @param salt the salt of the stage.
+     * @return the noise.
+     */
+    public PerlinNoise noise(long salt) {
+        return noises.computeIfAbsent(salt, k -> new PerlinNoise(GenerationContext.mix(seed, 0, k)));
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    public List<GenerationStage> stages() {
+        return stages;
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.gen.noise;
+
+import java.util.SplittableRandom;
+
+/**
+ * 2D gradient noise in the style of improved Perlin noise, evaluated in single precision.
+ * <p>
+ * Rows of samples are evaluated with the Vector API if the {@code jdk.incubator.vector} module is present;
+ * otherwise, or with {@code -Drecx.noise.scalar=true}, with the scalar implementation.
+ * Both implementations perform the same IEEE operations in the same order, so their results are bit-identical.
+ * <p>
+ * The noise repeats every {@value #PERIOD} units. The coordinates are reduced into the period in double precision,
+ * so that far coordinates don't lose the precision of the fractional part.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class PerlinNoise {
+    public static final int PERIOD = 256;
+    /**
+     * {@code true} if the rows are evaluated with the Vector API.
+     */
+    public static final boolean VECTORIZED = !Boolean.getBoolean("recx.noise.scalar") &&
+                                             ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    final int[] permutation = new int[PERIOD * 2 + 1];
+
+    public PerlinNoise(long seed) {
+        final SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < PERIOD; i++) {
+            permutation[i] = i;
+        }
+        for (int i = PERIOD - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int t = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = t;
+        }
+        // the table is doubled, and one more entry for the hash of x + 1 + y + 1
+        System.arraycopy(permutation, 0, permutation, PERIOD, PERIOD);
+        permutation[PERIOD * 2] = permutation[0];
+    }
+
+    static float reduce(double x) {
+        return (float) (x - Math.floor(x / PERIOD) * PERIOD);
+    }
+
+    static float fade(float t) {
+        return t * t * t * (t * (t * 6f - 15f) + 10f);
+    }
+
+    static float lerp(float t, float a, float b) {
+        return a + (b - a) * t;
+    }
+
+    static float grad(int hash, float x, float y) {
+        return ((hash & 1) == 0 ? x : -x) + ((hash & 2) == 0 ? y : -y);
+    }
+
+    /**
+     * Evaluates the noise at the given reduced coordinates.
+     *
+     * @param p the permutation table.
+     * @param x the reduced x.
+     * @param y the reduced y.
+     * @return the noise value in {@code [-1, 1]}.
+     */
+    static float sample(int[] p, float x, float y) {
+        int xi = (int) x;
+        if (xi > x) xi--;
+        int yi = (int) y;
+        if (yi > y) yi--;
+        final float fx = x - xi;
+        final float fy = y - yi;
+        final int px = xi & (PERIOD - 1);
+        final int py = yi & (PERIOD - 1);
+        final float u = fade(fx);
+        final float v = fade(fy);
+        final int a = p[px];
+        final int b = p[px + 1];
+        final float x1 = lerp(u, grad(p[a + py], fx, fy), grad(p[b + py], fx - 1f, fy));
+        final float x2 = lerp(u, grad(p[a + py + 1], fx, fy - 1f), grad(p[b + py + 1], fx - 1f, fy - 1f));
+        return lerp(v, x1, x2);
+    }
+
+    public float sample(double x, double y) {
+        return sample(permutation, reduce(x), reduce(y));
+    }
+
+    /**
+     * Evaluates a row of samples at {@code (x + i * step, y)}.
+     *
+     * @param x      the x of the first sample.
+     * @param y      the y of the row.
+     * @param step   the distance between the samples.
+     * @param dst    the destination array.
+     * @param offset the offset in the destination array.
+     * @param count  the count of the samples.
+     */
+    public void sampleRow(double x, double y, float step, float[] dst, int offset, int count) {
+        if (VECTORIZED) {
+            VectorizedNoise.sampleRow(permutation, reduce(x), reduce(y), step, dst, offset, count);
+        } else {
+            sampleRowScalar(x, y, step, dst, offset, count);
+        }
+    }
+
+    /**
+     * Evaluates a row of samples with the scalar implementation.
+     *
+     * @param x      the x of the first sample.
+     * @param y      the y of the row.
+     * @param step   the distance between the samples.
+     * @param dst    the destination array.
+     * @param offset the offset in the destination array.
+     * @param count  the count of the samples.
+     * @see #sampleRow(double, double, float, float[], int, int)
+     */
+    public void sampleRowScalar(double x, double y, float step, float[] dst, int offset, int count) {
+        sampleRowScalar(permutation, reduce(x), reduce(y), step, dst, offset, 0, count);
+    }
+
+    static void sampleRowScalar(int[] p, float x, float y, float step, float[] dst, int offset, int from, int count) {
+        for (int i = from; i < count; i++) {
+            dst[offset + i] = sample(p, x + (float) i * step, y);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.gen.noise;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The Vector API implementation of {@link PerlinNoise}. This class is only loaded if the module is present.
+ * <p>
+ * Each operation mirrors the scalar {@link PerlinNoise#sample(int[], float, float)}; no fused multiply-add is used.
+ * The floors are truncated with a float-to-int conversion and corrected below negative fractions, like the scalar
+ * code, and the hashes of the cells are gathered from the permutation table. A gather reads its indices from
+ * an array, so each thread reuses its own index array.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+final class VectorizedNoise {
+    private static final VectorSpecies<Float> F = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> I = VectorSpecies.of(int.class, F.vectorShape());
+    private static final FloatVector IOTA = FloatVector.fromArray(F, iota(), 0);
+    private static final ThreadLocal<int[]> INDICES = ThreadLocal.withInitial(() -> new int[I.length()]);
+
+    private VectorizedNoise() {
+    }
+
+    private static float[] iota() {
+        final float[] array = new float[F.length()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = i;
+        }
+        return array;
+    }
+
+    private static FloatVector fade(FloatVector t) {
+        return t.mul(t).mul(t).mul(t.mul(t.mul(6f).sub(15f)).add(10f));
+    }
+
+    private static FloatVector lerp(FloatVector t, FloatVector a, FloatVector b) {
+        return a.add(b.sub(a).mul(t));
+    }
+
+    private static FloatVector grad(IntVector hash, FloatVector x, FloatVector y) {
+        // negation flips the sign bit: bit 0 of the hash negates x and bit 1 negates y
+        final FloatVector gx = x.reinterpretAsInts().lanewise(VectorOperators.XOR, hash.lanewise(VectorOperators.LSHL, 31))
+            .reinterpretAsFloats();
+        final FloatVector gy = y.reinterpretAsInts().lanewise(VectorOperators.XOR, hash.and(2).lanewise(VectorOperators.LSHL, 30))
+            .reinterpretAsFloats();
+        return gx.add(gy);
+    }
+
+    /**
+     * Gathers {@code p[index + offset]} per lane.
+     */
+    private static IntVector gather(int[] p, int offset, int[] indices) {
+        return IntVector.fromArray(I, p, offset, indices, 0);
+    }
+
+    static void sampleRow(int[] p, float x, float y, float step, float[] dst, int offset, int count) {
+        // the row shares y
+        int yi = (int) y;
+        if (yi > y) yi--;
+        final float fy = y - yi;
+        final int py = yi & (PerlinNoise.PERIOD - 1);
+        final FloatVector v = FloatVector.broadcast(F, PerlinNoise.fade(fy));
+        final FloatVector fy0 = FloatVector.broadcast(F, fy);
+        final FloatVector fy1 = FloatVector.broadcast(F, fy - 1f);
+        final int[] indices = INDICES.get();
+
+        final int bound = F.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += F.length()) {
+            final FloatVector vx = FloatVector.broadcast(F, (float) i).add(IOTA).mul(step).add(x);
+            // floor: truncate, then step down where the truncation is above the value
+            final IntVector truncated = (IntVector) vx.convert(VectorOperators.F2I, 0);
+            final FloatVector truncatedF = (FloatVector) truncated.convert(VectorOperators.I2F, 0);
+            final VectorMask<Float> above = truncatedF.compare(VectorOperators.GT, vx);
+            final IntVector xi = truncated.sub(1, above.cast(I));
+            final FloatVector floor = (FloatVector) xi.convert(VectorOperators.I2F, 0);
+
+            xi.and(PerlinNoise.PERIOD - 1).intoArray(indices, 0);
+            final IntVector a = gather(p, 0, indices).add(py);
+            final IntVector b = gather(p, 1, indices).add(py);
+            a.intoArray(indices, 0);
+            final IntVector h00 = gather(p, 0, indices);
+            final IntVector h01 = gather(p, 1, indices);
+            b.intoArray(indices, 0);
+            final IntVector h10 = gather(p, 0, indices);
+            final IntVector h11 = gather(p, 1, indices);
+
+            final FloatVector fx = vx.sub(floor);
+            final FloatVector fx1 = fx.sub(1f);
+            final FloatVector u = fade(fx);
+            final FloatVector x1 = lerp(u, grad(h00, fx, fy0), grad(h10, fx1, fy0));
+            final FloatVector x2 = lerp(u, grad(h01, fx, fy1), grad(h11, fx1, fy1));
+            lerp(v, x1, x2).intoArray(dst, offset + i);
+        }
+        PerlinNoise.sampleRowScalar(p, x, y, step, dst, offset, i, count);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.storage;
+
+import recx.world.World;
+import recx.world.chunk.Chunk;
+import recx.world.entity.Entity;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the world in the background.
+ * <p>
+ * At a tick boundary, the chunks modified since the last save are snapshotted with
+ * {@link Chunk#snapshot()}, which shares the sections until the game writes to them.
+ * The snapshots are then encoded, with their palettes compacted on copies, compressed and written
+ * on a single worker thread.
+ * Chunks whose encoded content has the same checksum as the last written one are skipped.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class AutoSaver implements AutoCloseable {
+    private final WorldStorage storage;
+    private final int interval;
+    private final ExecutorService executor;
+    /**
+     * The checksums of the written chunks. Only accessed by the worker.
+     */
+    private final Map<Integer, Long> checksums = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+    private Future<?> pending;
+    private int ticks = 0;
+    private volatile Metrics metrics = Metrics.EMPTY;
+
+    /**
+     * The metrics of a save.
+     *
+     * @param snapshotChunks the count of the snapshotted chunks.
+     * @param writtenChunks  the count of the written chunks.
+     * @param skippedChunks  the count of the chunks skipped because their checksum didn't change.
+     * @param bytesWritten   the count of the compressed bytes written.
+     * @param snapshotNanos  the time spent on the game thread to snapshot the chunks.
+     * @param saveNanos      the time spent on the worker to encode and write the chunks.
+     * @author squid233
+     * @since 0.1.0
+     */
+    public record Metrics(int snapshotChunks,
+                          int writtenChunks,
+                          int skippedChunks,
+                          long bytesWritten,
+                          long snapshotNanos,
+                          long saveNanos) {
+        public static final Metrics EMPTY = new Metrics(0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Creates the auto saver.
+     *
+     * @param storage  the storage to write.
+     * @param interval the interval in ticks between saves.
+     */
+    public AutoSaver(WorldStorage storage, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The interval must be positive: " + interval);
+        }
+        this.storage = storage;
+        this.interval = interval;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "Recx Autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Counts a tick, and starts a save once per interval. Must be called at a tick boundary on the game thread.
+     *
+     * @param world  the world.
+     * @param player the player.
+     */
+    public void tick(World world, Entity player) {
+        ticks++;
+        if (ticks >= interval) {
+            // a slow save delays the next one instead of queueing up
+            if (pending == null || pending.isDone()) {
+                ticks = 0;
+                save(world, player);
+            }
+        }
+    }
+
+    /**
+     * Snapshots the dirty chunks and the level data, and writes them in the background.
+     *
+     * @param world  the world.
+     * @param player the player.
+     * @return the future of the save.
+     */
+    public Future<?> save(World world, Entity player) {
+        final long start = System.nanoTime();
+        final List<Chunk> chunks = new ArrayList<>();
+        final List<Chunk> snapshots = new ArrayList<>();
+        for (Chunk chunk : world.chunks()) {
+            if (chunk.isDirty()) {
+                chunks.add(chunk);
+                snapshots.add(chunk.snapshot());
+                chunk.clearDirty();
+            }
+        }
+        final MemorySegment level = WorldStorage.encodeLevel(world, player);
+        final long snapshotNanos = System.nanoTime() - start;
+        pending = executor.submit(() -> write(chunks, snapshots, level, snapshotNanos));
+        return pending;
+    }
+
+    private void write(List<Chunk> chunks, List<Chunk> snapshots, MemorySegment level, long snapshotNanos) {
+        final long start = System.nanoTime();
+        int written = 0;
+        int skipped = 0;
+        long bytes = 0;
+        for (int i = 0, size = snapshots.size(); i < size; i++) {
+            final Chunk snapshot = snapshots.get(i);
+            try {
+                final MemorySegment encoded = ChunkSerializer.encode(snapshot);
+                crc.reset();
+                crc.update(encoded.asByteBuffer());
+                final long checksum = crc.getValue();
+                final Long last = checksums.get(snapshot.x());
+                if (last != null && last == checksum) {
+                    skipped++;
+                    continue;
+                }
+                bytes += storage.regions().writeChunk(snapshot.x(), encoded);
+                checksums.put(snapshot.x(), checksum);
+                written++;
+            } catch (IOException | RuntimeException e) {
+                // todo: log
+                e.printStackTrace();
+                // retry on the next save
+                chunks.get(i).markDirty();
+            }
+        }
+        try {
+            storage.writeLevel(level);
+            bytes += level.byteSize();
+        } catch (IOException e) {
+            // todo: log
+            e.printStackTrace();
+        }
+        metrics = new Metrics(snapshots.size(), written, skipped, bytes, snapshotNanos, System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the metrics of the last finished save.
+     *
+     * @return the metrics.
+     */
+    public Metrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Waits for the pending save and stops the worker.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // todo: log
+                System.err.println("Timed out waiting for the autosave");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.storage;
+
+import recx.util.tag.TagReader;
+import recx.util.tag.TagTypes;
+import recx.util.tag.TagWriter;
+import recx.world.chunk.Chunk;
+import recx.world.chunk.ChunkSection;
+import recx.world.chunk.PalettedContainer;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Encodes chunks into and decodes chunks from binary tags.
+ * <p>
+ * The packed palette indices are stored as one long array payload per section.
+ * The reader streams over the tags and skips the unknown ones; {@code X} and {@code Depth} must precede {@code Sections}.
+ * <p>
+ * The palettes are compacted on a copy while encoding, so that reverted changes encode the same as before
+ * without touching the sections of the game; a snapshot can be encoded on another thread.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class ChunkSerializer {
+    public static final int VERSION = 2;
+    private static final long[] EMPTY_DATA = {};
+
+    public static MemorySegment encode(Chunk chunk) {
+        int sectionCount = 0;
+        for (int i = 0; i < chunk.sectionCount(); i++) {
+            if (chunk.getSection(i) != null) {
+                sectionCount++;
+            }
+        }
+        final TagWriter writer = new TagWriter(1024);
+        writer.beginCompound("")
+            .putInt("Version", VERSION)
+            .putInt("X", chunk.x())
+            .putInt("Depth", chunk.depth())
+            .beginList("Sections", TagTypes.COMPOUND, sectionCount);
+        for (int i = 0; i < chunk.sectionCount(); i++) {
+            final ChunkSection section = chunk.getSection(i);
+            if (section == null) continue;
+            PalettedContainer blocks = section.blocks();
+            if (!blocks.isSingleValue()) {
+                blocks = blocks.copy();
+                blocks.compact();
+            }
+            final int[] palette = new int[blocks.paletteSize()];
+            for (int j = 0; j < palette.length; j++) {
+                palette[j] = blocks.getPaletteRawId(j);
+            }
+            final long[] data = blocks.data();
+            writer.putInt("Y", i)
+                .putInt("Bits", blocks.bits())
+                .putIntArray("Palette", palette)
+                .putLongArray("Data", data != null ? data : EMPTY_DATA)
+                .endCompound();
+        }
+        return writer.endCompound().toSegment();
+    }
+
+    private static void readSection(TagReader reader, Chunk chunk) {
+        int sectionY = -1;
+        int bits = 0;
+        int[] palette = null;
+        long[] data = EMPTY_DATA;
+        while (reader.next() != TagTypes.END) {
+            if (reader.is("Y")) sectionY = reader.readInt();
+            else if (reader.is("Bits")) bits = reader.readInt();
+            else if (reader.is("Palette")) palette = reader.readIntArray();
+            else if (reader.is("Data")) data = reader.readLongArray();
+            else reader.skip();
+        }
+        if (palette == null) {
+            throw new IllegalArgumentException("Missing palette of section " + sectionY);
+        }
+        if (sectionY >= 0 && sectionY < chunk.sectionCount()) {
+            final int size = ChunkSection.SIZE * ChunkSection.SIZE * chunk.depth();
+            chunk.setSection(sectionY, new ChunkSection(chunk.depth(), PalettedContainer.of(size, palette, bits, data)));
+        }
+    }
+
+    /**
+     * Decodes a chunk.
+     *
+     * @param segment the encoded chunk. the segment is not retained.
+     * @param height  the height of the world.
+     * @return the chunk.
+     * @throws IllegalArgumentException if the data is malformed.
+     */
+    public static Chunk decode(MemorySegment segment, int height) {
+        final TagReader reader = new TagReader(segment);
+        if (reader.next() != TagTypes.COMPOUND) {
+            throw new IllegalArgumentException("The root tag must be a compound");
+        }
+        boolean hasX = false;
+        int chunkX = 0;
+        int depth = -1;
+        Chunk chunk = null;
+        while (reader.next() != TagTypes.END) {
+            if (reader.is("Version")) {
+                final int version = reader.readInt();
+                if (version != VERSION) {
+                    throw new IllegalArgumentException("Unsupported chunk version " + version);
+                }
+            } else if (reader.is("X")) {
+                chunkX = reader.readInt();
+                hasX = true;
+            } else if (reader.is("Depth")) {
+                depth = reader.readInt();
+            } else if (reader.is("Sections")) {
+                if (!hasX || depth <= 0) {
+                    throw new IllegalArgumentException("Sections before the chunk position");
+                }
+                chunk = new Chunk(chunkX, height, depth);
+                for (int i = 0, count = reader.beginList(); i < count; i++) {
+                    readSection(reader, chunk);
+                }
+            } else {
+                reader.skip();
+            }
+        }
+        if (chunk == null) {
+            if (!hasX || depth <= 0) {
+                throw new IllegalArgumentException("Missing the chunk position");
+            }
+            chunk = new Chunk(chunkX, height, depth);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.storage;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.function.Function;
+
+/**
+ * A region file holds {@value #SIZE} consecutive chunks.
+ * <p>
+ * The first sector is the header, which holds the sector offset and the byte length of each chunk.
+ * The chunks are stored in whole {@value #SECTOR_SIZE}-byte sectors; the free sectors are tracked by a bitmap.
+ * <p>
+ * Reads are slices of the memory-mapped file. The mapping is dropped after a write and mapped again on the next read.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class RegionFile implements AutoCloseable {
+    public static final int SHIFT = 5;
+    public static final int SIZE = 1 << SHIFT;
+    public static final int MASK = SIZE - 1;
+    public static final int SECTOR_SIZE = 4096;
+    private static final ValueLayout.OfInt HEADER_INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private final Path path;
+    private final FileChannel channel;
+    private final int[] offsets = new int[SIZE];
+    private final int[] lengths = new int[SIZE];
+    private final BitSet usedSectors = new BitSet();
+    private Arena mappingArena;
+    private MemorySegment mapping;
+
+    public RegionFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        usedSectors.set(0);
+        if (channel.size() < SECTOR_SIZE) {
+            writeFully(ByteBuffer.allocate(SECTOR_SIZE), 0);
+        } else {
+            final MemorySegment header = map();
+            for (int i = 0; i < SIZE; i++) {
+                final int offset = header.get(HEADER_INT, i * 8L);
+                final int length = header.get(HEADER_INT, i * 8L + 4);
+                if (offset == 0 && length == 0) continue;
+                if (offset <= 0 || length <= 0 || (long) offset * SECTOR_SIZE + length > mapping.byteSize()) {
+                    // todo: log
+                    System.err.println("Dropped chunk " + i + " of " + path + ": sector " + offset + " and length " + length + " are out of the file");
+                    continue;
+                }
+                final int next = usedSectors.nextSetBit(offset);
+                if (next >= 0 && next < offset + sectorCount(length)) {
+                    // todo: log
+                    System.err.println("Dropped chunk " + i + " of " + path + ": sector " + next + " is used by another chunk");
+                    continue;
+                }
+                offsets[i] = offset;
+                lengths[i] = length;
+                usedSectors.set(offset, offset + sectorCount(length));
+            }
+        }
+    }
+
+    public static String fileName(int regionX) {
+        return "r." + regionX + ".rxr";
+    }
+
+    private static int sectorCount(int length) {
+        return (length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    }
+
+    private MemorySegment map() throws IOException {
+        if (mapping == null) {
+            mappingArena = Arena.openShared();
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), mappingArena.scope());
+        }
+        return mapping;
+    }
+
+    private void unmap() {
+        if (mappingArena != null) {
+            mappingArena.close();
+            mappingArena = null;
+            mapping = null;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            pos += channel.write(buffer, pos);
+        }
+    }
+
+    public synchronized boolean hasChunk(int localX) {
+        return lengths[localX] > 0;
+    }
+
+    /**
+     * Reads a chunk.
+     *
+     * @param localX  the chunk x in this region.
+     * @param decoder the decoder. the segment passed to the decoder is only valid while decoding.
+     * @param <T>     the type of the decoded chunk.
+     * @return the decoded chunk, or {@code null} if the chunk is absent.
+     * @throws IOException if failed to map the file.
+     */
+    public synchronized <T> T read(int localX, Function<MemorySegment, T> decoder) throws IOException {
+        final int length = lengths[localX];
+        if (length <= 0) {
+            return null;
+        }
+        return decoder.apply(map().asSlice((long) offsets[localX] * SECTOR_SIZE, length));
+    }
+
+    /**
+     * Writes a chunk into the free sectors.
+     * <p>
+     * The current copy of the chunk stays intact until the header points to the new one,
+     * and only then are its sectors freed; a failed write leaves the previous save readable.
+     *
+     * @param localX the chunk x in this region.
+     * @param data   the encoded chunk.
+     * @throws IOException if failed to write the file.
+     */
+    public synchronized void write(int localX, MemorySegment data) throws IOException {
+        final int length = Math.toIntExact(data.byteSize());
+        final int sectors = sectorCount(length);
+        // first fit, excluding the current sectors of the chunk; appends at the end of the file if no run is large enough
+        int offset = usedSectors.nextClearBit(1);
+        int next;
+        while ((next = usedSectors.nextSetBit(offset)) >= 0 && next < offset + sectors) {
+            offset = usedSectors.nextClearBit(next);
+        }
+        unmap();
+        writeFully(data.asByteBuffer(), (long) offset * SECTOR_SIZE);
+        usedSectors.set(offset, offset + sectors);
+        final int oldOffset = offsets[localX];
+        final int oldSectors = sectorCount(lengths[localX]);
+        setHeader(localX, offset, length);
+        if (oldOffset > 0) {
+            usedSectors.clear(oldOffset, oldOffset + oldSectors);
+        }
+    }
+
+    /**
+     * Gets the first sector of a chunk.
+     *
+     * @param localX the chunk x in this region.
+     * @return the sector, or {@code 0} if the chunk is absent.
+     */
+    synchronized int sectorOffset(int localX) {
+        return offsets[localX];
+    }
+
+    public synchronized void delete(int localX) throws IOException {
+        if (offsets[localX] > 0) {
+            usedSectors.clear(offsets[localX], offsets[localX] + sectorCount(lengths[localX]));
+            unmap();
+            setHeader(localX, 0, 0);
+        }
+    }
+
+    private void setHeader(int localX, int offset, int length) throws IOException {
+        offsets[localX] = offset;
+        lengths[localX] = length;
+        final ByteBuffer entry = ByteBuffer.allocate(8).putInt(offset).putInt(length).flip();
+        writeFully(entry, localX * 8L);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        unmap();
+        channel.close();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.storage;
+
+import recx.world.chunk.Chunk;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores the chunks of a world in region files.
+ * <p>
+ * Each stored chunk starts with a 5-byte header: the compression type and the big-endian uncompressed length.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class RegionStorage implements AutoCloseable {
+    public static final byte COMPRESSION_NONE = 0;
+    public static final byte COMPRESSION_DEFLATE = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final ValueLayout.OfInt HEADER_INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private final Path directory;
+    private final Map<Integer, RegionFile> regions = new HashMap<>();
+
+    public RegionStorage(Path directory) {
+        this.directory = directory;
+    }
+
+    private synchronized RegionFile getRegion(int regionX, boolean create) throws IOException {
+        RegionFile region = regions.get(regionX);
+        if (region == null) {
+            final Path path = directory.resolve(RegionFile.fileName(regionX));
+            if (!create && Files.notExists(path)) {
+                return null;
+            }
+            Files.createDirectories(directory);
+            region = new RegionFile(path);
+            regions.put(regionX, region);
+        }
+        return region;
+    }
+
+    /**
+     * Loads a chunk.
+     *
+     * @param chunkX the chunk x.
+     * @param height the height of the world.
+     * @return the chunk, or {@code null} if the chunk was never saved.
+     * @throws IOException if failed to read the region file.
+     */
+    public Chunk loadChunk(int chunkX, int height) throws IOException {
+        final RegionFile region = getRegion(chunkX >> RegionFile.SHIFT, false);
+        if (region == null) {
+            return null;
+        }
+        return region.read(chunkX & RegionFile.MASK, segment -> ChunkSerializer.decode(decompress(segment), height));
+    }
+
+    public void saveChunk(Chunk chunk) throws IOException {
+        writeChunk(chunk.x(), ChunkSerializer.encode(chunk));
+    }
+
+    /**
+     * Compresses and writes an encoded chunk.
+     *
+     * @param chunkX  the chunk x.
+     * @param encoded the chunk encoded by {@link ChunkSerializer}.
+     * @return the count of the bytes written.
+     * @throws IOException if failed to write the region file.
+     */
+    public int writeChunk(int chunkX, MemorySegment encoded) throws IOException {
+        final MemorySegment data = compress(encoded);
+        getRegion(chunkX >> RegionFile.SHIFT, true).write(chunkX & RegionFile.MASK, data);
+        return (int) data.byteSize();
+    }
+
+    private static MemorySegment compress(MemorySegment data) {
+        final int rawLength = Math.toIntExact(data.byteSize());
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data.asByteBuffer());
+            deflater.finish();
+            byte[] buffer = new byte[HEADER_SIZE + rawLength / 2 + 64];
+            int length = HEADER_SIZE;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            final MemorySegment segment = MemorySegment.ofArray(buffer);
+            segment.set(ValueLayout.JAVA_BYTE, 0, COMPRESSION_DEFLATE);
+            segment.set(HEADER_INT, 1, rawLength);
+            return segment.asSlice(0, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static MemorySegment decompress(MemorySegment data) {
+        if (data.byteSize() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Truncated chunk header");
+        }
+        final byte compression = data.get(ValueLayout.JAVA_BYTE, 0);
+        final int rawLength = data.get(HEADER_INT, 1);
+        final MemorySegment payload = data.asSlice(HEADER_SIZE);
+        if (compression == COMPRESSION_NONE) {
+            return payload;
+        }
+        if (compression != COMPRESSION_DEFLATE) {
+            throw new IllegalArgumentException("Unknown compression type " + compression);
+        }
+        if (rawLength < 0) {
+            throw new IllegalArgumentException("Invalid chunk length " + rawLength);
+        }
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload.asByteBuffer());
+            final byte[] buffer = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength) {
+                final int count = inflater.inflate(buffer, length, rawLength - length);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated chunk data");
+                }
+                length += count;
+            }
+            return MemorySegment.ofArray(buffer);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Malformed chunk data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException exception = null;
+        for (RegionFile region : regions.values()) {
+            try {
+                region.close();
+            } catch (IOException e) {
+                if (exception == null) exception = e;
+                else exception.addSuppressed(e);
+            }
+        }
+        regions.clear();
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.storage;
+
+import recx.util.tag.TagReader;
+import recx.util.tag.TagTypes;
+import recx.util.tag.TagWriter;
+import recx.world.World;
+import recx.world.entity.Entity;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The storage of a world directory: the level data and the region files.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class WorldStorage implements AutoCloseable {
+    public static final String LEVEL_FILE = "level.dat";
+    public static final String REGION_DIRECTORY = "region";
+    public static final int VERSION = 1;
+    private final Path directory;
+    private final RegionStorage regions;
+
+    public WorldStorage(Path directory) {
+        this.directory = directory;
+        this.regions = new RegionStorage(directory.resolve(REGION_DIRECTORY));
+    }
+
+    /**
+     * Encodes the level data.
+     *
+     * @param world  the world.
+     * @param player the player.
+     * @return the encoded level data.
+     */
+    public static MemorySegment encodeLevel(World world, Entity player) {
+        final TagWriter writer = new TagWriter();
+        writer.beginCompound("")
+            .putInt("Version", VERSION)
+            .putInt("Height", world.height())
+            .putInt("Depth", world.depth())
+            .putLong("Seed", world.generator().seed())
+            .beginCompound("Player");
+        player.write(writer);
+        return writer.endCompound().endCompound().toSegment();
+    }
+
+    /**
+     * Writes the level data.
+     *
+     * @param world  the world.
+     * @param player the player.
+     * @throws IOException if failed to write the file.
+     */
+    public void writeLevel(World world, Entity player) throws IOException {
+        writeLevel(encodeLevel(world, player));
+    }
+
+    /**
+     * Writes the encoded level data.
+     *
+     * @param data the data encoded by {@link #encodeLevel(World, Entity)}.
+     * @throws IOException if failed to write the file.
+     */
+    public void writeLevel(MemorySegment data) throws IOException {
+        Files.createDirectories(directory);
+        final Path file = directory.resolve(LEVEL_FILE);
+        final Path temp = directory.resolve(LEVEL_FILE + "_new");
+        try (FileChannel channel = FileChannel.open(temp,
+            StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = data.asByteBuffer();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the level data. The level is ignored if its dimensions don't match the world.
+     *
+     * @param world  the world.
+     * @param player the player to restore.
+     * @return {@code true} if the level data was read.
+     * @throws IOException if failed to read the file.
+     */
+    public boolean readLevel(World world, Entity player) throws IOException {
+        final Path file = directory.resolve(LEVEL_FILE);
+        if (Files.notExists(file)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Arena arena = Arena.openConfined()) {
+            final MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena.scope());
+            final TagReader reader = new TagReader(segment);
+            if (reader.next() != TagTypes.COMPOUND) {
+                throw new IOException("The root tag of " + file + " must be a compound");
+            }
+            while (reader.next() != TagTypes.END) {
+                if (reader.is("Height")) {
+                    if (reader.readInt() != world.height()) return false;
+                } else if (reader.is("Depth")) {
+                    if (reader.readInt() != world.depth()) return false;
+                } else if (reader.is("Player")) {
+                    player.read(reader);
+                } else {
+                    reader.skip();
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Reads the seed from the level data.
+     *
+     * @param defaultSeed the seed to return if the level data or the seed is absent.
+     * @return the seed.
+     * @throws IOException if failed to read the file.
+     */
+    public long readSeed(long defaultSeed) throws IOException {
+        final Path file = directory.resolve(LEVEL_FILE);
+        if (Files.notExists(file)) {
+            return defaultSeed;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Arena arena = Arena.openConfined()) {
+            final MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena.scope());
+            final TagReader reader = new TagReader(segment);
+            if (reader.next() != TagTypes.COMPOUND) {
+                throw new IOException("The root tag of " + file + " must be a compound");
+            }
+            while (reader.next() != TagTypes.END) {
+                if (reader.is("Seed")) {
+                    return reader.readLong();
+                }
+                reader.skip();
+            }
+            return defaultSeed;
+        }
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public RegionStorage regions() {
+        return regions;
+    }
+
+    @Override
+    public void close() throws IOException {
+        regions.close();
+    }
+}
@@ -4,7 +4,10 @@ in vec4 vertexColor;
 
 out vec4 FragColor;
 
-uniform vec4 ColorModulator;
+layout(std140) uniform Frame {
+    mat4 ProjectionViewMatrix;
+    vec4 ColorModulator;
+};
 
 void main() {
     FragColor = vertexColor * ColorModulator;
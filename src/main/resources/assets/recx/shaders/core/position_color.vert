@@ -5,7 +5,11 @@ in vec4 Color;
 
 out vec4 vertexColor;
 
-uniform mat4 ProjectionViewMatrix;
+// the per-view data shared by all programs
+layout(std140) uniform Frame {
+    mat4 ProjectionViewMatrix;
+    vec4 ColorModulator;
+};
 uniform mat4 ModelMatrix;
 
 void main() {
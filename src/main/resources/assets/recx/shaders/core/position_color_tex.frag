@@ -5,7 +5,10 @@ in vec2 texCoords0;
 
 out vec4 FragColor;
 
-uniform vec4 ColorModulator;
+layout(std140) uniform Frame {
+    mat4 ProjectionViewMatrix;
+    vec4 ColorModulator;
+};
 uniform sampler2D Sampler0;
 
 void main() {
@@ -0,0 +1,28 @@
+#version 150 core
+
+// x, y and z of the bottom-left corner, and the sprite index
+in vec4 Instance;
+in vec4 Color;
+
+out vec4 vertexColor;
+out vec2 texCoords0;
+
+// the per-view data shared by all programs
+layout(std140) uniform Frame {
+    mat4 ProjectionViewMatrix;
+    vec4 ColorModulator;
+};
+uniform mat4 ModelMatrix;
+// the texture region of each sprite: u0, v0, u1, v1
+uniform samplerBuffer Sprites;
+
+// the corners of the unit quad in the order of the quad indices: top-left, bottom-left, bottom-right, top-right
+const vec2 CORNERS[4] = vec2[](vec2(0.0, 1.0), vec2(0.0, 0.0), vec2(1.0, 0.0), vec2(1.0, 1.0));
+
+void main() {
+    vec2 corner = CORNERS[gl_VertexID & 3];
+    gl_Position = ProjectionViewMatrix * ModelMatrix * vec4(Instance.xy + corner, Instance.z, 1.0);
+    vec4 region = texelFetch(Sprites, int(Instance.w));
+    texCoords0 = vec2(mix(region.x, region.z, corner.x), mix(region.w, region.y, corner.y));
+    vertexColor = Color;
+}
@@ -0,0 +1,18 @@
+#version 150 core
+
+in vec4 vertexColor;
+in vec2 texCoords0;
+flat in vec4 texRegion;
+
+out vec4 FragColor;
+
+layout(std140) uniform Frame {
+    mat4 ProjectionViewMatrix;
+    vec4 ColorModulator;
+};
+uniform sampler2D Sampler0;
+
+void main() {
+    // repeat the texture once per block
+    FragColor = vertexColor * texture(Sampler0, texRegion.xy + fract(texCoords0) * texRegion.zw) * ColorModulator;
+}
@@ -0,0 +1,27 @@
+#version 150 core
+
+// x, y and z in blocks local to the section, and the shade in w
+in vec4 Position;
+in vec4 TexRegion;
+
+out vec4 vertexColor;
+out vec2 texCoords0;
+flat out vec4 texRegion;
+
+// the per-view data shared by all programs
+layout(std140) uniform Frame {
+    mat4 ProjectionViewMatrix;
+    vec4 ColorModulator;
+};
+uniform mat4 ModelMatrix;
+
+// the brightness of each shade, matching the layer colors of the block renderer
+const float Shades[4] = float[4](1.0, 128.0 / 255.0, 1.0, 1.0);
+
+void main() {
+    gl_Position = ProjectionViewMatrix * ModelMatrix * vec4(Position.xyz, 1.0);
+    vertexColor = vec4(vec3(Shades[int(Position.w)]), 1.0);
+    // the texture coordinates count blocks from the top left of the quad, which is at a whole block
+    texCoords0 = vec2(Position.x, -Position.y);
+    texRegion = TexRegion;
+}
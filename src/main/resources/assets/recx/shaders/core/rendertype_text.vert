@@ -7,7 +7,11 @@ in vec2 UV0;
 out vec4 vertexColor;
 out vec2 texCoords0;
 
-uniform mat4 ProjectionViewMatrix;
+// the per-view data shared by all programs
+layout(std140) uniform Frame {
+    mat4 ProjectionViewMatrix;
+    vec4 ColorModulator;
+};
 uniform mat4 ModelMatrix;
 
 void main() {
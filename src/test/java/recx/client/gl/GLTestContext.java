@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.gl;
+
+import org.overrun.glib.RuntimeHelper;
+import org.overrun.glib.gl.GLLoader;
+import org.overrun.glib.glfw.GLFW;
+import org.overrun.glib.util.MemoryStack;
+
+import java.lang.foreign.MemorySegment;
+
+import static org.junit.jupiter.api.Assumptions.*;
+
+/**
+ * The GL context of the tests tagged {@value #TAG}: a hidden window with a 3.3 core context, like the game's one.
+ * <p>
+ * The context is created on first use and kept until the JVM exits, since the state shadowed by
+ * {@link GLStateManager} would not survive a new context. The {@code glTest} task runs the tests on Mesa's
+ * software rasterizer, llvmpipe. Where no window can be created, e.g. on a headless machine, the tests are aborted
+ * rather than failed.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+public final class GLTestContext {
+    public static final String TAG = "gl";
+    private static MemorySegment window;
+
+    private GLTestContext() {
+    }
+
+    /**
+     * Creates the context if absent, and makes it current. Aborts the calling test if the context cannot be created.
+     */
+    public static void makeCurrent() {
+        if (window != null) return;
+        assumeTrue(GLFW.init(), "Failed to initialize GLFW");
+        GLFW.windowHint(GLFW.VISIBLE, false);
+        GLFW.windowHint(GLFW.CONTEXT_VERSION_MAJOR, 3);
+        GLFW.windowHint(GLFW.CONTEXT_VERSION_MINOR, 3);
+        GLFW.windowHint(GLFW.OPENGL_PROFILE, GLFW.OPENGL_CORE_PROFILE);
+        GLFW.windowHint(GLFW.OPENGL_FORWARD_COMPAT, true);
+        final MemorySegment handle;
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            handle = GLFW.createWindow(stack, 64, 64, "Recx Test", MemorySegment.NULL, MemorySegment.NULL);
+        }
+        assumeTrue(handle.address() != RuntimeHelper.NULL, "Failed to create the window");
+        GLFW.makeContextCurrent(handle);
+        GLLoader.loadConfined(true, GLFW::getProcAddress);
+        window = handle;
+    }
+}
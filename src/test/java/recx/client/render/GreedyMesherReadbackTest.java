@@ -0,0 +1,163 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+package recx.client.render;
+
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.overrun.glib.gl.GL;
+import recx.client.gl.GLDrawMode;
+import recx.client.gl.GLProgram;
+import recx.client.gl.GLStateManager;
+import recx.client.gl.GLTestContext;
+import recx.client.gl.VertexFormat;
+import recx.client.texture.NativeImage;
+import recx.client.texture.TextureAtlas;
+import recx.registry.BuiltinRegistries;
+import recx.util.Identifier;
+import recx.world.block.Block;
+import recx.world.chunk.ChunkSection;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Draws the greedy mesh of a section and one quad per visible block with the terrain program, into an
+ * offscreen framebuffer with one pixel per texel, and checks that the pixels are the same.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+@Tag(GLTestContext.TAG)
+class GreedyMesherReadbackTest {
+    private static final int SIZE = ChunkSection.SIZE;
+    // the block textures are 16x16
+    private static final int PIXELS = SIZE * 16;
+    private static GLProgram program;
+    private static TextureAtlas atlas;
+    private static BakedBlockModels models;
+    private static int framebuffer;
+    private static int renderbuffer;
+
+    @BeforeAll
+    static void setUp() {
+        GLTestContext.makeCurrent();
+        renderbuffer = GL.genRenderbuffer();
+        GL.bindRenderbuffer(GL.RENDERBUFFER, renderbuffer);
+        GL.renderbufferStorage(GL.RENDERBUFFER, GL.RGBA8, PIXELS, PIXELS);
+        framebuffer = GL.genFramebuffer();
+        GL.bindFramebuffer(GL.FRAMEBUFFER, framebuffer);
+        GL.framebufferRenderbuffer(GL.FRAMEBUFFER, GL.COLOR_ATTACHMENT0, GL.RENDERBUFFER, renderbuffer);
+        assertEquals(GL.FRAMEBUFFER_COMPLETE, GL.checkFramebufferStatus(GL.FRAMEBUFFER));
+        GLStateManager.setViewport(0, 0, PIXELS, PIXELS);
+        GLStateManager.disableBlend();
+
+        final Map<Identifier, NativeImage> images = new HashMap<>();
+        for (Block block : BuiltinRegistries.BLOCK) {
+            if (block.isAir()) continue;
+            final Identifier texture = BlockRenderer.getTexture(block);
+            images.put(texture, NativeImage.load(texture.toTexturePath(), NativeImage.Param.rgba()));
+        }
+        atlas = new TextureAtlas();
+        atlas.pack(images);
+        images.values().forEach(NativeImage::close);
+        models = BakedBlockModels.bake(atlas);
+
+        program = new GLProgram(Identifier.recx("core/rendertype_terrain"), VertexFormat.PACKED_POSITION_TEX_REGION);
+        // one block per 16 pixels from the bottom left
+        RenderSystem.setProjectionViewMatrix(new Matrix4f().setOrtho(0, SIZE, 0, SIZE, -SIZE, SIZE), new Matrix4f());
+        RenderSystem.setModelMatrix(new Matrix4f());
+        RenderSystem.setColorModulator(1f, 1f, 1f, 1f);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        // the context was not created
+        if (program == null) return;
+        RenderSystem.setProgram(null);
+        program.close();
+        atlas.close();
+        GL.bindFramebuffer(GL.FRAMEBUFFER, 0);
+        GL.deleteFramebuffer(framebuffer);
+        GL.deleteRenderbuffer(renderbuffer);
+    }
+
+    private static MeshBuilder perBlockMesh(ChunkSection section) {
+        final int[] cells = GreedyMesherTest.expectedCells(section);
+        final MeshBuilder builder = new MeshBuilder(VertexFormat.PACKED_POSITION_TEX_REGION, GLDrawMode.QUADS, 64);
+        builder.begin();
+        for (int z = 0; z < section.depth(); z++) {
+            builder.shade(BlockRenderer.getLayerShade(z));
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    final int block = cells[(z * SIZE + y) * SIZE + x];
+                    if (block == 0) continue;
+                    models.texRegion(block - 1, builder);
+                    builder.quad(x, y, x + 1, y + 1, z, 0f, 0f, 1f, 1f);
+                }
+            }
+        }
+        builder.end();
+        return builder;
+    }
+
+    private static int[] drawAndRead(MeshBuilder builder) {
+        GL.clearColor(0f, 0f, 0f, 0f);
+        GL.clear(GL.COLOR_BUFFER_BIT);
+        RenderSystem.setProgram(program);
+        RenderSystem.bindTexture2D(atlas);
+        try (SectionMesh mesh = new SectionMesh();
+             Arena arena = Arena.openConfined()) {
+            mesh.upload(builder, null, 0L, 0);
+            mesh.draw();
+            GLStateManager.bindVertexArray(0);
+            final MemorySegment pixels = arena.allocate((long) PIXELS * PIXELS * 4);
+            GL.readPixels(0, 0, PIXELS, PIXELS, GL.RGBA, GL.UNSIGNED_BYTE, pixels);
+            final int[] colors = new int[PIXELS * PIXELS];
+            for (int i = 0; i < colors.length; i++) {
+                colors[i] = pixels.get(Tessellator.COLOR, i * 4L);
+            }
+            return colors;
+        } finally {
+            RenderSystem.bindTexture2D(0);
+            RenderSystem.setProgram(null);
+        }
+    }
+
+    @Test
+    void greedyMeshMatchesPerBlockQuads() {
+        final ChunkSection section = GreedyMesherTest.mixedSection();
+        final MeshBuilder greedy = new MeshBuilder(VertexFormat.PACKED_POSITION_TEX_REGION, GLDrawMode.QUADS, 64);
+        GreedyMesher.build(section, models, greedy);
+        final MeshBuilder perBlock = perBlockMesh(section);
+        assertTrue(greedy.vertexCount() < perBlock.vertexCount());
+
+        final int[] expected = drawAndRead(perBlock);
+        final int[] actual = drawAndRead(greedy);
+        for (int i = 0; i < expected.length; i++) {
+            if (actual[i] != expected[i]) {
+                fail("Pixel (" + i % PIXELS + ", " + i / PIXELS + ") is " + Integer.toHexString(actual[i]) +
+                     " instead of " + Integer.toHexString(expected[i]));
+            }
+        }
+    }
+}
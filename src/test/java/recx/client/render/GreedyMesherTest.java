@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+package recx.client.render;
+
+import org.junit.jupiter.api.Test;
+import recx.client.gl.GLDrawMode;
+import recx.client.gl.VertexFormat;
+import recx.registry.BuiltinRegistries;
+import recx.world.block.Block;
+import recx.world.block.Blocks;
+import recx.world.chunk.ChunkSection;
+
+import java.lang.foreign.MemorySegment;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT_UNALIGNED;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT_UNALIGNED;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Meshes a section with runs, holes and a partly occluded back layer, and checks that the merged quads
+ * cover exactly the visible cells, with the texture region of the right block.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+class GreedyMesherTest {
+    private static final int SIZE = ChunkSection.SIZE;
+    private static final int DEPTH = 2;
+    // the raw id r has the region (r / 8, 0) to ((r + 1) / 8, 1)
+    private static final int REGIONS_PER_ROW = 8;
+
+    static BakedBlockModels models() {
+        final float[] regions = new float[REGIONS_PER_ROW * BakedBlockModels.REGION_STRIDE];
+        for (int rawId = 0; rawId < REGIONS_PER_ROW; rawId++) {
+            final int r = rawId * BakedBlockModels.REGION_STRIDE;
+            regions[r] = (float) rawId / REGIONS_PER_ROW;
+            regions[r + 1] = 0f;
+            regions[r + 2] = (float) (rawId + 1) / REGIONS_PER_ROW;
+            regions[r + 3] = 1f;
+        }
+        return new BakedBlockModels(regions);
+    }
+
+    private static void fill(ChunkSection section, Block block, int x0, int y0, int x1, int y1, int z) {
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                section.setBlock(block, x, y, z);
+            }
+        }
+    }
+
+    static ChunkSection mixedSection() {
+        final ChunkSection section = new ChunkSection(DEPTH);
+        // the back layer: whole rows, mostly behind the front layer
+        fill(section, Blocks.BEDROCK, 0, 0, SIZE - 1, 9, 0);
+        fill(section, Blocks.COBBLESTONE, 0, 12, 7, 13, 0);
+        section.setBlock(Blocks.AIR, 3, 12, 0);
+        // the front layer: a run with a hole
+        fill(section, Blocks.STONE, 0, 0, SIZE - 1, 0, 1);
+        section.setBlock(Blocks.AIR, 5, 0, 1);
+        // a rectangle with a hole, next to a rectangle of another block
+        fill(section, Blocks.DIRT, 2, 3, 6, 7, 1);
+        section.setBlock(Blocks.AIR, 4, 5, 1);
+        fill(section, Blocks.GRASS_BLOCK, 7, 3, 10, 4, 1);
+        // a run under the grass, which must not be merged into it
+        fill(section, Blocks.STONE, 7, 5, 12, 5, 1);
+        // in front of a part of the cobblestone
+        fill(section, Blocks.STONE, 6, 13, 9, 14, 1);
+        section.setBlock(Blocks.COBBLESTONE, SIZE - 1, SIZE - 1, 1);
+        return section;
+    }
+
+    /**
+     * Computes the raw id + 1 of the visible block of each cell, indexed by {@code (z * SIZE + y) * SIZE + x};
+     * 0 if invisible.
+     */
+    static int[] expectedCells(ChunkSection section) {
+        final int[] cells = new int[DEPTH * SIZE * SIZE];
+        for (int z = 0; z < DEPTH; z++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    final Block block = section.getBlock(x, y, z);
+                    if (block.isAir()) continue;
+                    if (z + 1 < DEPTH && !section.getBlock(x, y, z + 1).isTextureTranslucent()) continue;
+                    cells[(z * SIZE + y) * SIZE + x] = BuiltinRegistries.BLOCK.getRawId(block) + 1;
+                }
+            }
+        }
+        return cells;
+    }
+
+    @Test
+    void quadsCoverExactlyTheVisibleCells() {
+        final ChunkSection section = mixedSection();
+        final MeshBuilder builder = new MeshBuilder(VertexFormat.PACKED_POSITION_TEX_REGION, GLDrawMode.QUADS, 16);
+        final int blocks = GreedyMesher.build(section, models(), builder);
+
+        final int[] expected = expectedCells(section);
+        final int[] covered = new int[expected.length];
+        final MemorySegment data = builder.vertexData();
+        final int stride = VertexFormat.PACKED_POSITION_TEX_REGION.stride();
+        final int quadCount = builder.vertexCount() / 4;
+        assertEquals(0, builder.vertexCount() % 4);
+        int prevZ = 0;
+        for (int quad = 0; quad < quadCount; quad++) {
+            // the vertices are the top left, bottom left, bottom right and top right corners
+            int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE;
+            int z = -1, shade = -1, rawId = -1;
+            for (int i = 0; i < 4; i++) {
+                final long offset = (long) (quad * 4 + i) * stride;
+                final int position = data.get(JAVA_INT_UNALIGNED, offset);
+                final int x = position & 0x3ff, y = position >>> 10 & 0x3ff;
+                x0 = Math.min(x0, x);
+                y0 = Math.min(y0, y);
+                x1 = Math.max(x1, x);
+                y1 = Math.max(y1, y);
+                final int u = Short.toUnsignedInt(data.get(JAVA_SHORT_UNALIGNED, offset + 4));
+                final int vertexRawId = Math.round(u / 65535f * REGIONS_PER_ROW);
+                if (i == 0) {
+                    z = position >>> 20 & 0x3ff;
+                    shade = position >>> 30;
+                    rawId = vertexRawId;
+                } else {
+                    assertEquals(z, position >>> 20 & 0x3ff, "Z of quad " + quad);
+                    assertEquals(shade, position >>> 30, "Shade of quad " + quad);
+                    assertEquals(rawId, vertexRawId, "Block of quad " + quad);
+                }
+            }
+            assertTrue(z >= prevZ, "The back layers are emitted first");
+            prevZ = z;
+            assertEquals(BlockRenderer.getLayerShade(z), shade, "Shade of quad " + quad);
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+                    final int cell = (z * SIZE + y) * SIZE + x;
+                    assertEquals(0, covered[cell], "Cell (" + x + ", " + y + ", " + z + ") is covered twice");
+                    covered[cell] = rawId + 1;
+                }
+            }
+        }
+        for (int z = 0; z < DEPTH; z++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    final int cell = (z * SIZE + y) * SIZE + x;
+                    assertEquals(expected[cell] - 1, covered[cell] - 1, "Block of cell (" + x + ", " + y + ", " + z + ")");
+                }
+            }
+        }
+
+        int visibleCount = 0;
+        for (int cell : expected) {
+            if (cell != 0) visibleCount++;
+        }
+        assertEquals(visibleCount, blocks);
+        assertTrue(quadCount < visibleCount / 4, quadCount + " quads for " + visibleCount + " visible cells");
+    }
+}
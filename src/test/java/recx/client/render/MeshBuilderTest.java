@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import org.junit.jupiter.api.Test;
+import recx.client.gl.GLDrawMode;
+import recx.client.gl.VertexFormat;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT_UNALIGNED;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author squid233
+ * @since 0.1.0
+ */
+class MeshBuilderTest {
+    private static final int QUADS = 1024;
+
+    private static MeshBuilder fill(GLDrawMode drawMode, boolean bulk) {
+        final MeshBuilder builder = new MeshBuilder(VertexFormat.POSITION_COLOR_TEX, drawMode, 16);
+        builder.begin();
+        for (int i = 0; i < QUADS; i++) {
+            final float x = i & 31, y = i >> 5;
+            final int color = (i & 1) == 0 ? 0xffffffff : 0x808080ff;
+            if (bulk) {
+                builder.quad(x, y, x + 1, y + 1, 1f, 0.25f, 0.5f, 0.5f, 0.75f, color);
+            } else {
+                builder.indices(0, 1, 2, 2, 3, 0).color(color);
+                builder.texCoords(0.25f, 0.5f).vertex(x, y + 1, 1f).emit();
+                builder.texCoords(0.25f, 0.75f).vertex(x, y, 1f).emit();
+                builder.texCoords(0.5f, 0.75f).vertex(x + 1, y, 1f).emit();
+                builder.texCoords(0.5f, 0.5f).vertex(x + 1, y + 1, 1f).emit();
+            }
+        }
+        builder.end();
+        return builder;
+    }
+
+    @Test
+    void bulkQuadsMatchPerVertexQuads() {
+        final MeshBuilder expected = fill(GLDrawMode.TRIANGLES, false);
+        final MeshBuilder actual = fill(GLDrawMode.TRIANGLES, true);
+        assertEquals(QUADS * 4, actual.vertexCount());
+        assertEquals(QUADS * 6, actual.indexCount());
+        assertEquals(expected.vertexCount(), actual.vertexCount());
+        assertEquals(expected.indexCount(), actual.indexCount());
+        assertEquals(-1L, expected.vertexData().mismatch(actual.vertexData()));
+        assertEquals(-1L, expected.indexData().mismatch(actual.indexData()));
+    }
+
+    @Test
+    void quadsWriteNoIndices() {
+        final MeshBuilder triangles = fill(GLDrawMode.TRIANGLES, true);
+        for (boolean bulk : new boolean[]{false, true}) {
+            final MeshBuilder quads = fill(GLDrawMode.QUADS, bulk);
+            assertEquals(QUADS * 4, quads.vertexCount());
+            assertEquals(0, quads.indexCount());
+            assertEquals(0L, quads.indexData().byteSize());
+            assertEquals(-1L, triangles.vertexData().mismatch(quads.vertexData()));
+        }
+    }
+
+    @Test
+    void packedShadeIsExplicit() {
+        final MeshBuilder builder = new MeshBuilder(VertexFormat.PACKED_POSITION_TEX_REGION, GLDrawMode.QUADS, 8);
+        builder.begin();
+        builder.color(0x808080ff).shade(BlockRenderer.getLayerShade(0));
+        builder.quad(1, 2, 3, 4, 0f, 0f, 0f, 0f, 0f);
+        // the color does not change the shade
+        builder.color(0xffffffff).shade(BlockRenderer.getLayerShade(1));
+        builder.quad(1, 2, 3, 4, 1f, 0f, 0f, 0f, 0f);
+        builder.end();
+        final int stride = VertexFormat.PACKED_POSITION_TEX_REGION.stride();
+        for (int i = 0; i < 8; i++) {
+            final int position = builder.vertexData().get(JAVA_INT_UNALIGNED, (long) i * stride);
+            assertEquals(i < 4 ? 1 : 0, position >>> 30, "Shade of vertex " + i);
+            assertEquals(i < 4 ? 0 : 1, position >>> 20 & 0x3ff, "Z of vertex " + i);
+        }
+    }
+}
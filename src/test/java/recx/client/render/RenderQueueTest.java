@@ -0,0 +1,60 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author squid233
+ * @since 0.1.0
+ */
+class RenderQueueTest {
+    @Test
+    void layersInDeclarationOrder() {
+        assertTrue(RenderQueue.sortKey(RenderLayer.OPAQUE, 5, 5, RenderQueue.MAX_DEPTH, 9) <
+                   RenderQueue.sortKey(RenderLayer.CUTOUT, 1, 1, 0, 0));
+        assertTrue(RenderQueue.sortKey(RenderLayer.TRANSLUCENT, 1, 1, 0, 0) <
+                   RenderQueue.sortKey(RenderLayer.GUI, 1, 1, 0, 0));
+    }
+
+    @Test
+    void groupsByStateFrontToBack() {
+        // the state comes before the depth
+        assertTrue(RenderQueue.sortKey(RenderLayer.OPAQUE, 1, 2, 100, 0) <
+                   RenderQueue.sortKey(RenderLayer.OPAQUE, 2, 1, 0, 1));
+        assertTrue(RenderQueue.sortKey(RenderLayer.OPAQUE, 1, 2, 10, 1) <
+                   RenderQueue.sortKey(RenderLayer.OPAQUE, 1, 2, 20, 0));
+    }
+
+    @Test
+    void depthFirstBackToFront() {
+        assertTrue(RenderQueue.sortKey(RenderLayer.TRANSLUCENT, 2, 2, 20, 1) <
+                   RenderQueue.sortKey(RenderLayer.TRANSLUCENT, 1, 1, 10, 0));
+    }
+
+    @Test
+    void depthFirstKeepsSubmissionOrderAtEqualDepth() {
+        // a GUI background submitted before its text with a lower program id must stay behind it
+        final long background = RenderQueue.sortKey(RenderLayer.GUI, 7, 3, 0, 0);
+        final long text = RenderQueue.sortKey(RenderLayer.GUI, 2, 9, 0, 1);
+        assertTrue(background < text);
+        assertEquals(0, background & 0xffff);
+        assertEquals(1, text & 0xffff);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+package recx.client.render;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author squid233
+ * @since 0.1.0
+ */
+class SectionMeshMapTest {
+    private static long key(int chunkX, int sectionY) {
+        return (long) chunkX << 32 | (sectionY & 0xffffffffL);
+    }
+
+    @Test
+    void closeIfKeepsTheOtherMeshes() {
+        final SectionMeshMap map = new SectionMeshMap(4);
+        final Map<Long, SectionMesh> expected = new HashMap<>();
+        for (int cx = -20; cx < 20; cx++) {
+            for (int sy = -4; sy < 12; sy++) {
+                final SectionMesh mesh = new SectionMesh();
+                assertNull(map.put(key(cx, sy), mesh));
+                expected.put(key(cx, sy), mesh);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+
+        final int removed = map.closeIf(key -> {
+            final int cx = (int) (key >> 32);
+            final int sy = (int) key;
+            return cx < -5 || cx > 7 || sy < 0 || sy > 3;
+        });
+        expected.keySet().removeIf(key -> {
+            final int cx = (int) (key >> 32);
+            final int sy = (int) (long) key;
+            return cx < -5 || cx > 7 || sy < 0 || sy > 3;
+        });
+        assertEquals(40 * 16 - 13 * 4, removed);
+        assertEquals(expected.size(), map.size());
+        for (int cx = -20; cx < 20; cx++) {
+            for (int sy = -4; sy < 12; sy++) {
+                assertSame(expected.get(key(cx, sy)), map.get(key(cx, sy)), "Mesh of (" + cx + ", " + sy + ")");
+            }
+        }
+    }
+
+    @Test
+    void versionsArePutAndRemoved() {
+        final SectionVersionMap map = new SectionVersionMap(4);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(SectionVersionMap.NO_VERSION, map.put(key(i, -i), i));
+        }
+        assertEquals(7L, map.put(key(7, -7), 8L));
+        for (int i = 0; i < 100; i += 2) {
+            assertEquals(i, map.remove(key(i, -i)));
+        }
+        assertEquals(50, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals((i & 1) == 0 ? SectionVersionMap.NO_VERSION : i == 7 ? 8L : i, map.get(key(i, -i)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> map.put(0L, -1L));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.overrun.glib.gl.GL;
+import recx.client.gl.GLProgram;
+import recx.client.gl.GLStateManager;
+import recx.client.gl.GLTestContext;
+import recx.client.gl.StreamBuffer;
+import recx.client.gl.VertexFormat;
+import recx.util.Identifier;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+/**
+ * Draws through the {@link Tessellator} into an offscreen framebuffer and reads the pixels back,
+ * on both streaming paths of the {@link StreamBuffer}.
+ * <p>
+ * One column per frame wraps around the segments many times, so the fences are waited before the segments
+ * are rewritten; one column per batch in a single frame sub-allocates the batches in one segment;
+ * one pixel per quad outgrows the initial segment, so the stream buffer is recreated.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+@Tag(GLTestContext.TAG)
+class TessellatorStreamTest {
+    private static final String ORPHAN_STREAMING = "recx.render.orphanStreaming";
+    // 5120 quads, more vertices than the default segment of 16384
+    private static final int WIDTH = 80;
+    private static final int HEIGHT = 64;
+    private static GLProgram program;
+    private static int framebuffer;
+    private static int renderbuffer;
+
+    @BeforeAll
+    static void setUp() {
+        GLTestContext.makeCurrent();
+        renderbuffer = GL.genRenderbuffer();
+        GL.bindRenderbuffer(GL.RENDERBUFFER, renderbuffer);
+        GL.renderbufferStorage(GL.RENDERBUFFER, GL.RGBA8, WIDTH, HEIGHT);
+        framebuffer = GL.genFramebuffer();
+        GL.bindFramebuffer(GL.FRAMEBUFFER, framebuffer);
+        GL.framebufferRenderbuffer(GL.FRAMEBUFFER, GL.COLOR_ATTACHMENT0, GL.RENDERBUFFER, renderbuffer);
+        assertEquals(GL.FRAMEBUFFER_COMPLETE, GL.checkFramebufferStatus(GL.FRAMEBUFFER));
+        GLStateManager.setViewport(0, 0, WIDTH, HEIGHT);
+        GLStateManager.disableBlend();
+
+        program = new GLProgram(Identifier.recx("core/position_color"), VertexFormat.POSITION_COLOR);
+        // one unit per pixel from the bottom left
+        RenderSystem.setProjectionViewMatrix(new Matrix4f().setOrtho(0, WIDTH, 0, HEIGHT, -1, 1), new Matrix4f());
+        RenderSystem.setModelMatrix(new Matrix4f());
+        RenderSystem.setColorModulator(1f, 1f, 1f, 1f);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        // the context was not created
+        if (program == null) return;
+        RenderSystem.setProgram(null);
+        program.close();
+        GL.bindFramebuffer(GL.FRAMEBUFFER, 0);
+        GL.deleteFramebuffer(framebuffer);
+        GL.deleteRenderbuffer(renderbuffer);
+    }
+
+    @AfterEach
+    void freeTessellator() {
+        Tessellator.free();
+        System.clearProperty(ORPHAN_STREAMING);
+    }
+
+    private static int columnColor(int x, int round) {
+        return (x * 3) << 24 | (255 - x * 3) << 16 | (round * 64) << 8 | 0xff;
+    }
+
+    private static int pixelColor(int x, int y) {
+        return (x * 3) << 24 | (y * 3) << 16 | 0x80ff;
+    }
+
+    private static void drawColumns(Tessellator t, int round, boolean framePerColumn) {
+        GL.clearColor(0f, 0f, 0f, 0f);
+        GL.clear(GL.COLOR_BUFFER_BIT);
+        RenderSystem.setProgram(program);
+        for (int x = 0; x < WIDTH; x++) {
+            t.begin();
+            t.quad(x, 0, x + 1, HEIGHT, 0f, 0f, 0f, 0f, 0f, columnColor(x, round));
+            t.end();
+            if (framePerColumn) t.endFrame();
+        }
+        t.endFrame();
+        RenderSystem.setProgram(null);
+    }
+
+    private static void drawPixels(Tessellator t) {
+        GL.clearColor(0f, 0f, 0f, 0f);
+        GL.clear(GL.COLOR_BUFFER_BIT);
+        RenderSystem.setProgram(program);
+        t.begin();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                t.quad(x, y, x + 1, y + 1, 0f, 0f, 0f, 0f, 0f, pixelColor(x, y));
+            }
+        }
+        t.end();
+        t.endFrame();
+        RenderSystem.setProgram(null);
+    }
+
+    @FunctionalInterface
+    private interface Expected {
+        int color(int x, int y);
+    }
+
+    private static void assertPixels(Expected expected) {
+        try (Arena arena = Arena.openConfined()) {
+            final MemorySegment pixels = arena.allocate((long) WIDTH * HEIGHT * 4);
+            GL.readPixels(0, 0, WIDTH, HEIGHT, GL.RGBA, GL.UNSIGNED_BYTE, pixels);
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    final int actual = pixels.get(Tessellator.COLOR, ((long) y * WIDTH + x) * 4);
+                    final int color = expected.color(x, y);
+                    if (actual != color) {
+                        fail("Pixel (" + x + ", " + y + ") is " + Integer.toHexString(actual) + " instead of " + Integer.toHexString(color));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void drawAndCheck() {
+        final Tessellator t = Tessellator.getInstance();
+
+        drawColumns(t, 0, true);
+        assertPixels((x, y) -> columnColor(x, 0));
+
+        drawColumns(t, 1, false);
+        assertPixels((x, y) -> columnColor(x, 1));
+        assertEquals(0, t.growCount());
+
+        drawPixels(t);
+        assertEquals(1, t.growCount());
+        assertTrue(t.vertexCapacity() >= (long) WIDTH * HEIGHT * 4);
+        assertPixels(TessellatorStreamTest::pixelColor);
+
+        // the recreated buffer wraps around too
+        drawColumns(t, 2, true);
+        assertPixels((x, y) -> columnColor(x, 2));
+    }
+
+    @Test
+    void persistentMapping() {
+        assumeTrue(StreamBuffer.isPersistentMappingSupported(), "The driver does not support ARB_buffer_storage");
+        drawAndCheck();
+    }
+
+    @Test
+    void orphaning() {
+        System.setProperty(ORPHAN_STREAMING, "true");
+        assertFalse(StreamBuffer.isPersistentMappingSupported());
+        drawAndCheck();
+    }
+}
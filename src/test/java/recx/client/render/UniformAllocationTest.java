@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.client.render;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import recx.client.gl.GLProgram;
+import recx.client.gl.GLTestContext;
+import recx.client.gl.VertexFormat;
+import recx.util.Identifier;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+/**
+ * Checks that the uniforms are resolved into slots, and that updating and uploading them doesn't allocate.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+@Tag(GLTestContext.TAG)
+class UniformAllocationTest {
+    private static final int WARMUP_UPDATES = 200_000;
+    private static final int UPDATES = 100_000;
+    private static GLProgram program;
+
+    @BeforeAll
+    static void setUp() {
+        GLTestContext.makeCurrent();
+        program = new GLProgram(Identifier.recx("core/position_color_tex"), VertexFormat.POSITION_COLOR_TEX);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        // the context was not created
+        if (program == null) return;
+        RenderSystem.setProgram(null);
+        program.close();
+    }
+
+    @Test
+    void slots() {
+        assertEquals(GLProgram.SLOT_MODEL_MATRIX, GLProgram.slot(GLProgram.MODEL_MATRIX));
+        assertNotNull(program.uniform(GLProgram.SLOT_MODEL_MATRIX));
+        assertNotNull(program.uniform(GLProgram.SLOT_SAMPLER0));
+        // in the shared uniform buffer
+        assertNull(program.uniform(GLProgram.SLOT_PROJECTION_VIEW_MATRIX));
+        assertNull(program.uniform(GLProgram.slot("UniformAllocationTest")));
+    }
+
+    private static void update(int count) {
+        for (int i = 0; i < count; i++) {
+            RenderSystem.modelMatrix().translation(i & 255, 0f, 0f);
+            RenderSystem.setModelMatrix(RenderSystem.modelMatrix());
+            RenderSystem.setProjectionViewMatrix(RenderSystem.projectionMatrix(), RenderSystem.viewMatrix());
+            RenderSystem.setColorModulator(1f, 1f, 1f, (i & 1) == 0 ? 1f : 0.5f);
+            RenderSystem.uploadUniforms();
+        }
+    }
+
+    @Test
+    void updatesDoNotAllocate() {
+        final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+            "The JVM does not measure the allocations of a thread");
+        RenderSystem.setProgram(program);
+        update(WARMUP_UPDATES);
+        final long before = threads.getCurrentThreadAllocatedBytes();
+        update(UPDATES);
+        final long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        RenderSystem.setProgram(null);
+        assertEquals(0L, allocated, "Bytes allocated by " + UPDATES + " uniform updates");
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world;
+
+import org.junit.jupiter.api.Test;
+import recx.world.block.Blocks;
+import recx.world.gen.WorldGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author squid233
+ * @since 0.1.0
+ */
+class ChangeJournalTest {
+    @Test
+    void consumersDrainIndependently() {
+        final World world = new World(64, 2, null, WorldGenerator.createDefault(0L));
+        final ChangeJournal journal = new ChangeJournal(16);
+        world.setJournal(journal);
+        final ChangeJournal.Cursor first = journal.cursor();
+        world.setBlock(Blocks.COBBLESTONE, 3, 62, 0);
+        final ChangeJournal.Cursor second = journal.cursor();
+        world.setBlock(Blocks.COBBLESTONE, -1, 63, 1);
+        // unchanged blocks are not recorded
+        world.setBlock(Blocks.COBBLESTONE, -1, 63, 1);
+
+        final List<int[]> firstChanges = new ArrayList<>();
+        assertEquals(2, first.drain((x, y, z, oldRawId, newRawId) -> firstChanges.add(new int[]{x, y, z})));
+        assertArrayEquals(new int[]{3, 62, 0}, firstChanges.get(0));
+        assertArrayEquals(new int[]{-1, 63, 1}, firstChanges.get(1));
+        assertEquals(0, first.drain((x, y, z, oldRawId, newRawId) -> fail()));
+
+        final List<int[]> secondChanges = new ArrayList<>();
+        assertEquals(1, second.drain((x, y, z, oldRawId, newRawId) -> secondChanges.add(new int[]{x, y, z})));
+        assertArrayEquals(new int[]{-1, 63, 1}, secondChanges.get(0));
+    }
+
+    @Test
+    void versionsAreSharedByConsumers() {
+        final World world = new World(64, 2, null, WorldGenerator.createDefault(0L));
+        world.setBlock(Blocks.COBBLESTONE, 0, 63, 0);
+        final long seen = world.getChunk(0).sectionVersion(3);
+        world.setBlock(Blocks.COBBLESTONE, 1, 63, 0);
+        // reading the version does not consume it
+        assertEquals(seen + 1, world.getChunk(0).sectionVersion(3));
+        assertEquals(seen + 1, world.getChunk(0).sectionVersion(3));
+    }
+
+    @Test
+    void fallingBehindIsReported() {
+        final ChangeJournal journal = new ChangeJournal(4);
+        final ChangeJournal.Cursor cursor = journal.cursor();
+        for (int i = 0; i < 5; i++) {
+            journal.record(i, 0, 0, 0, 1);
+        }
+        assertTrue(cursor.isLost());
+        assertEquals(-1, cursor.drain((x, y, z, oldRawId, newRawId) -> fail()));
+        assertFalse(cursor.isLost());
+        journal.record(9, 0, 0, 1, 0);
+        assertEquals(1, cursor.drain((x, y, z, oldRawId, newRawId) -> assertEquals(9, x)));
+    }
+}
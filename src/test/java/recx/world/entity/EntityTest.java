@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.entity;
+
+import org.junit.jupiter.api.Test;
+import recx.util.tag.TagReader;
+import recx.util.tag.TagTypes;
+import recx.util.tag.TagWriter;
+import recx.world.World;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author squid233
+ * @since 0.1.0
+ */
+class EntityTest {
+    private static TagReader readCompound(TagWriter writer) {
+        final TagReader reader = new TagReader(writer.toSegment());
+        assertEquals(TagTypes.COMPOUND, reader.next());
+        return reader;
+    }
+
+    @Test
+    void roundTrip() {
+        final World world = new World(64, 2);
+        final Entity entity = new Entity(world);
+        entity.teleport(-20.25, 33.0, 0.75);
+        entity.velocity.set(0.125, 0.5, -0.0625);
+        entity.onGround = true;
+        final TagWriter writer = new TagWriter();
+        writer.beginCompound("");
+        entity.write(writer);
+        writer.endCompound();
+
+        final Entity restored = new Entity(world);
+        restored.read(readCompound(writer));
+        assertEquals(entity.position, restored.position);
+        assertEquals(entity.position, restored.prevPosition);
+        assertEquals(entity.velocity, restored.velocity);
+        assertTrue(restored.onGround);
+        assertFalse(restored.flying);
+        assertEquals(entity.box.minX(), restored.box.minX());
+        assertEquals(entity.box.minY(), restored.box.minY());
+    }
+
+    @Test
+    void skipsUnknownTags() {
+        final TagWriter writer = new TagWriter();
+        writer.beginCompound("")
+            .putString("Id", "recx:player")
+            .beginCompound("Velocity").putDouble("X", 1.0).putLong("Stamp", 3L).putDouble("Y", 2.0).endCompound()
+            .beginList("Inventory", TagTypes.COMPOUND, 2)
+            .putInt("Slot", 0).endCompound()
+            .putInt("Slot", 1).putIntArray("Tags", new int[]{1, 2}).endCompound()
+            .putBoolean("Flying", true)
+            .endCompound()
+            // the reader must stop at the end of the entity
+            .putInt("After", 1);
+
+        final Entity entity = new Entity(new World(64, 2));
+        final TagReader reader = readCompound(writer);
+        entity.read(reader);
+        assertEquals(1.0, entity.velocity.x());
+        assertEquals(2.0, entity.velocity.y());
+        assertEquals(0.0, entity.velocity.z());
+        assertTrue(entity.flying);
+        assertEquals(TagTypes.INT, reader.next());
+        assertTrue(reader.is("After"));
+    }
+}
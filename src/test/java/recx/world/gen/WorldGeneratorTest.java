@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+package recx.world.gen;
+
+import org.junit.jupiter.api.Test;
+import recx.world.block.Block;
+import recx.world.block.Blocks;
+import recx.world.chunk.Chunk;
+import recx.world.chunk.ChunkSection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Generates the same chunks sequentially and in parallel in another order, and checks that every block matches.
+ *
+ * @author squid233
+ * @since 0.1.0
+ */
+class WorldGeneratorTest {
+    private static final long SEED = 20230601L;
+    private static final int HEIGHT = 128;
+    private static final int DEPTH = 2;
+    private static final int MIN_CHUNK_X = -12;
+    private static final int MAX_CHUNK_X = 12;
+
+    @Test
+    void parallelGenerationMatchesSequentialGeneration() {
+        final WorldGenerator sequentialGenerator = WorldGenerator.createDefault(SEED);
+        final List<Chunk> sequential = new ArrayList<>();
+        for (int cx = MIN_CHUNK_X; cx <= MAX_CHUNK_X; cx++) {
+            sequential.add(sequentialGenerator.generate(cx, HEIGHT, DEPTH));
+        }
+
+        // a new generator, so that the noises are also created concurrently
+        final WorldGenerator parallelGenerator = WorldGenerator.createDefault(SEED);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<CompletableFuture<Chunk>> futures = new ArrayList<>();
+        try {
+            for (int cx = MAX_CHUNK_X; cx >= MIN_CHUNK_X; cx--) {
+                final int chunkX = cx;
+                futures.add(CompletableFuture.supplyAsync(() -> parallelGenerator.generate(chunkX, HEIGHT, DEPTH), executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int ores = 0;
+        for (int i = 0; i < sequential.size(); i++) {
+            final Chunk expected = sequential.get(i);
+            final Chunk actual = futures.get(futures.size() - 1 - i).join();
+            assertEquals(expected.x(), actual.x());
+            for (int z = 0; z < DEPTH; z++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    for (int x = 0; x < ChunkSection.SIZE; x++) {
+                        final Block block = expected.getBlock(x, y, z);
+                        if (block == Blocks.COBBLESTONE) ores++;
+                        assertSame(block, actual.getBlock(x, y, z),
+                            "Block at (" + x + ", " + y + ", " + z + ") of chunk " + expected.x());
+                    }
+                }
+            }
+        }
+        // the ore stage draws from its salted random, so its blocks are compared too
+        assertTrue(ores > 0, "No ore was generated");
+    }
+}
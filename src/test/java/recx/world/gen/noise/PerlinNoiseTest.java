@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.gen.noise;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author squid233
+ * @since 0.1.0
+ */
+class PerlinNoiseTest {
+    private static final int ROW = 256;
+    private static final int ROWS = 4096;
+
+    private static void assertRowsIdentical(PerlinNoise noise, double x, double y, float step, int offset, int count) {
+        final float[] scalar = new float[offset + count];
+        final float[] vector = new float[offset + count];
+        noise.sampleRowScalar(x, y, step, scalar, offset, count);
+        noise.sampleRow(x, y, step, vector, offset, count);
+        for (int i = 0; i < scalar.length; i++) {
+            if (Float.floatToRawIntBits(scalar[i]) != Float.floatToRawIntBits(vector[i])) {
+                fail("Mismatch at (" + x + ", " + y + ") sample " + i + ": " + scalar[i] + " != " + vector[i]);
+            }
+        }
+    }
+
+    @Test
+    void vectorized() {
+        // the tests run with the incubator module, so the rows below go through the vectorized path
+        assertTrue(PerlinNoise.VECTORIZED);
+    }
+
+    @Test
+    void vectorizedRowsMatchScalarRows() {
+        final PerlinNoise noise = new PerlinNoise(20230525L);
+        for (int row = 0; row < ROWS; row++) {
+            assertRowsIdentical(noise, row * 13.7 - 20000.0, row * 0.173, 0.0371f, 0, ROW);
+        }
+    }
+
+    @Test
+    void vectorizedTailsMatchScalarTails() {
+        final PerlinNoise noise = new PerlinNoise(42L);
+        for (int count = 1; count <= 40; count++) {
+            assertRowsIdentical(noise, -3.25 * count, 0.5 + count, 1f / 24f, count % 5, count);
+        }
+    }
+
+    @Test
+    void vectorizedFloorsMatchScalarFloorsBelowZero() {
+        // a negative step walks below the reduced range, so the truncations are corrected
+        final PerlinNoise noise = new PerlinNoise(7L);
+        for (int row = 0; row < 64; row++) {
+            assertRowsIdentical(noise, 2.75 + row * 0.01, row * 0.37, -0.173f, 0, ROW);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.storage;
+
+import org.junit.jupiter.api.Test;
+import recx.registry.BuiltinRegistries;
+import recx.util.tag.TagTypes;
+import recx.util.tag.TagWriter;
+import recx.world.block.Block;
+import recx.world.block.Blocks;
+import recx.world.chunk.Chunk;
+import recx.world.chunk.ChunkSection;
+
+import java.lang.foreign.MemorySegment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author squid233
+ * @since 0.1.0
+ */
+class ChunkSerializerTest {
+    private static final int HEIGHT = 64;
+    private static final int DEPTH = 2;
+
+    private static void assertSameBlocks(Chunk expected, Chunk actual) {
+        assertEquals(expected.x(), actual.x());
+        assertEquals(expected.depth(), actual.depth());
+        assertEquals(expected.sectionCount(), actual.sectionCount());
+        for (int sy = 0; sy < expected.sectionCount(); sy++) {
+            assertEquals(expected.getSection(sy) == null, actual.getSection(sy) == null, "Presence of section " + sy);
+        }
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int z = 0; z < DEPTH; z++) {
+                for (int x = 0; x < ChunkSection.SIZE; x++) {
+                    assertSame(expected.getBlock(x, y, z), actual.getBlock(x, y, z), "Block at (" + x + ", " + y + ", " + z + ")");
+                }
+            }
+        }
+    }
+
+    @Test
+    void roundTrip() {
+        final Block[] blocks = {Blocks.STONE, Blocks.DIRT, Blocks.GRASS_BLOCK, Blocks.COBBLESTONE, Blocks.BEDROCK};
+        final Chunk chunk = new Chunk(-3, HEIGHT, DEPTH);
+        // a single-value section, a mixed one, and an empty one between them
+        for (int y = 0; y < ChunkSection.SIZE; y++) {
+            for (int z = 0; z < DEPTH; z++) {
+                for (int x = 0; x < ChunkSection.SIZE; x++) {
+                    chunk.setBlock(Blocks.STONE, x, y, z);
+                    chunk.setBlock(blocks[(x * 7 + y * 3 + z) % blocks.length], x, y + ChunkSection.SIZE * 2, z);
+                }
+            }
+        }
+        // a block set and removed again
+        chunk.setBlock(Blocks.DIRT, 5, HEIGHT - 1, 0);
+        chunk.setBlock(Blocks.AIR, 5, HEIGHT - 1, 0);
+
+        final Chunk decoded = ChunkSerializer.decode(ChunkSerializer.encode(chunk), HEIGHT);
+        assertSameBlocks(chunk, decoded);
+        assertNull(decoded.getSection(1));
+        assertNull(decoded.getSection(3));
+    }
+
+    @Test
+    void emptyChunk() {
+        final Chunk chunk = new Chunk(7, HEIGHT, DEPTH);
+        assertSameBlocks(chunk, ChunkSerializer.decode(ChunkSerializer.encode(chunk), HEIGHT));
+    }
+
+    @Test
+    void skipsUnknownTags() {
+        final TagWriter writer = new TagWriter();
+        writer.beginCompound("")
+            .putString("Generator", "test")
+            .beginCompound("Extra")
+            .putLongArray("Words", new long[]{1L, 2L, 3L})
+            .beginList("Entries", TagTypes.COMPOUND, 2)
+            .putInt("A", 1).endCompound()
+            .beginCompound("Nested").putDouble("B", 2.0).endCompound().endCompound()
+            .endCompound()
+            .putInt("Version", ChunkSerializer.VERSION)
+            .putInt("X", 4)
+            .putInt("Depth", DEPTH)
+            .beginList("Sections", TagTypes.COMPOUND, 1)
+            .putByte("Light", (byte) 15)
+            .putInt("Y", 2)
+            .putInt("Bits", 0)
+            .putIntArray("Palette", new int[]{BuiltinRegistries.BLOCK.getRawId(Blocks.DIRT)})
+            .putLongArray("Data", new long[0])
+            .putString("Comment", "ignored")
+            .endCompound()
+            .putLong("LastUpdate", 42L)
+            .endCompound();
+        final MemorySegment segment = writer.toSegment();
+
+        final Chunk chunk = ChunkSerializer.decode(segment, HEIGHT);
+        assertEquals(4, chunk.x());
+        assertEquals(DEPTH, chunk.depth());
+        for (int sy = 0; sy < chunk.sectionCount(); sy++) {
+            assertEquals(sy == 2, chunk.getSection(sy) != null, "Presence of section " + sy);
+        }
+        assertSame(Blocks.DIRT, chunk.getBlock(3, ChunkSection.SIZE * 2 + 9, 1));
+    }
+
+    @Test
+    void revertedChangesEncodeTheSame() {
+        final Chunk chunk = new Chunk(0, HEIGHT, DEPTH);
+        chunk.setBlock(Blocks.STONE, 0, 0, 0);
+        chunk.setBlock(Blocks.DIRT, 1, 0, 0);
+        final MemorySegment before = ChunkSerializer.encode(chunk.snapshot());
+        chunk.setBlock(Blocks.COBBLESTONE, 2, 0, 0);
+        chunk.setBlock(Blocks.AIR, 2, 0, 0);
+        final Chunk snapshot = chunk.snapshot();
+        final int paletteSize = snapshot.getSection(0).blocks().paletteSize();
+        assertEquals(-1L, before.mismatch(ChunkSerializer.encode(snapshot)));
+        // the encoder compacts a copy, not the shared section
+        assertEquals(paletteSize, snapshot.getSection(0).blocks().paletteSize());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author squid233
+ * @since 0.1.0
+ */
+class RegionFileTest {
+    @TempDir
+    Path directory;
+
+    private static MemorySegment data(int value, int length) {
+        final byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return MemorySegment.ofArray(bytes);
+    }
+
+    private static void assertData(RegionFile file, int localX, int value, int length) throws IOException {
+        final byte[] bytes = file.read(localX, segment -> {
+            final byte[] array = new byte[(int) segment.byteSize()];
+            segment.asByteBuffer().get(array);
+            return array;
+        });
+        assertNotNull(bytes, "Chunk " + localX);
+        final byte[] expected = new byte[length];
+        Arrays.fill(expected, (byte) value);
+        assertArrayEquals(expected, bytes, "Chunk " + localX);
+    }
+
+    @Test
+    void rewriteKeepsTheOldCopyUntilTheHeaderMoves() throws IOException {
+        final Path path = directory.resolve(RegionFile.fileName(0));
+        try (RegionFile file = new RegionFile(path)) {
+            file.write(0, data(1, 5000));
+            file.write(1, data(2, 100));
+            final int first = file.sectorOffset(0);
+
+            // the same size does not go back into the live sectors
+            file.write(0, data(3, 5000));
+            final int second = file.sectorOffset(0);
+            assertNotEquals(first, second);
+            assertData(file, 0, 3, 5000);
+            assertData(file, 1, 2, 100);
+
+            // the sectors freed by the first rewrite are reused
+            file.write(0, data(4, 6000));
+            assertEquals(first, file.sectorOffset(0));
+            assertData(file, 0, 4, 6000);
+        }
+        try (RegionFile file = new RegionFile(path)) {
+            assertData(file, 0, 4, 6000);
+            assertData(file, 1, 2, 100);
+            assertFalse(file.hasChunk(2));
+        }
+    }
+
+    @Test
+    void dropsBrokenHeaderEntries() throws IOException {
+        final Path path = directory.resolve(RegionFile.fileName(1));
+        try (RegionFile file = new RegionFile(path)) {
+            file.write(0, data(5, 100));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // chunk 1 overlaps chunk 0, and chunk 2 is out of the file
+            channel.write(ByteBuffer.allocate(8).putInt(1).putInt(50).flip(), 8);
+            channel.write(ByteBuffer.allocate(8).putInt(2).putInt(100).flip(), 16);
+        }
+        try (RegionFile file = new RegionFile(path)) {
+            assertData(file, 0, 5, 100);
+            assertFalse(file.hasChunk(1));
+            assertFalse(file.hasChunk(2));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2023 XenFork Union
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ */
+
+package recx.world.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import recx.util.tag.TagTypes;
+import recx.util.tag.TagWriter;
+import recx.world.World;
+import recx.world.entity.Entity;
+import recx.world.gen.WorldGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author squid233
+ * @since 0.1.0
+ */
+class WorldStorageTest {
+    @TempDir
+    Path directory;
+
+    private static World world(int height, int depth, long seed) {
+        return new World(height, depth, null, WorldGenerator.createDefault(seed));
+    }
+
+    @Test
+    void levelRoundTrip() throws IOException {
+        final World world = world(128, 2, 1234L);
+        final Entity player = new Entity(world);
+        player.teleport(12.5, 70.0, 1.5);
+        player.velocity.set(0.25, -0.5, 0.0);
+        player.flying = true;
+        try (WorldStorage storage = new WorldStorage(directory)) {
+            storage.writeLevel(world, player);
+        }
+
+        try (WorldStorage storage = new WorldStorage(directory)) {
+            assertEquals(1234L, storage.readSeed(0L));
+            final Entity restored = new Entity(world);
+            assertTrue(storage.readLevel(world, restored));
+            assertEquals(player.position, restored.position);
+            assertEquals(player.velocity, restored.velocity);
+            assertTrue(restored.flying);
+            assertFalse(restored.onGround);
+        }
+    }
+
+    @Test
+    void absentLevel() throws IOException {
+        try (WorldStorage storage = new WorldStorage(directory)) {
+            assertEquals(99L, storage.readSeed(99L));
+            assertFalse(storage.readLevel(world(128, 2, 0L), new Entity(world(128, 2, 0L))));
+        }
+    }
+
+    @Test
+    void ignoresLevelOfOtherDimensions() throws IOException {
+        final World world = world(128, 2, 0L);
+        final Entity player = new Entity(world);
+        player.teleport(3.5, 20.0, 0.5);
+        try (WorldStorage storage = new WorldStorage(directory)) {
+            storage.writeLevel(world, player);
+            final World taller = world(256, 2, 0L);
+            final Entity restored = new Entity(taller);
+            assertFalse(storage.readLevel(taller, restored));
+        }
+    }
+
+    @Test
+    void skipsUnknownTags() throws IOException {
+        final World world = world(128, 2, 0L);
+        final TagWriter writer = new TagWriter();
+        writer.beginCompound("")
+            .beginList("Players", TagTypes.COMPOUND, 1)
+            .putString("Name", "other").endCompound()
+            .putInt("Version", WorldStorage.VERSION)
+            .putLongArray("Bookmarks", new long[]{7L, 8L})
+            .putInt("Height", world.height())
+            .putInt("Depth", world.depth())
+            .putLong("Seed", 5L)
+            .beginCompound("Player")
+            .beginCompound("Position").putDouble("X", 4.5).putDouble("Y", 30.0).putDouble("Z", 1.5).endCompound()
+            .endCompound()
+            .putString("Comment", "ignored")
+            .endCompound();
+        try (WorldStorage storage = new WorldStorage(directory)) {
+            storage.writeLevel(writer.toSegment());
+            assertEquals(5L, storage.readSeed(0L));
+            final Entity player = new Entity(world);
+            assertTrue(storage.readLevel(world, player));
+            assertEquals(4.5, player.position.x());
+            assertEquals(30.0, player.position.y());
+            assertEquals(1.5, player.position.z());
+        }
+    }
+}